@@ -0,0 +1,35 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.CheckSums;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Check sums identifying stored contents, calculated for each uploaded document.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CheckSumBenchmark {
+    @Param({"DOCX", "XLSX", "ODT"})
+    public DocumentFormat format;
+
+    @Param({"100", "1000", "10000"})
+    public int paragraphs;
+
+    private byte[] document;
+
+    @Setup
+    public void setUp() throws Exception {
+        document = new Corpus().document(format, paragraphs);
+    }
+
+    @Benchmark
+    public String calculateCheckSum() {
+        return CheckSums.calculate(document);
+    }
+}
@@ -0,0 +1,48 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.CompressionCodec;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compression of stored documents and of text parsed from them. Ratio of sizes is printed during setup, as it does
+ * not change between iterations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompressionBenchmark {
+    @Param({"TEXT", "DOCX", "XLSX", "ODT"})
+    public DocumentFormat format;
+
+    @Param({"1000", "10000"})
+    public int paragraphs;
+
+    @Param({"NONE", "DEFLATE"})
+    public CompressionCodec codec;
+
+    private byte[] content;
+    private byte[] compressed;
+
+    @Setup
+    public void setUp() throws IOException {
+        content = new Corpus().document(format, paragraphs);
+        compressed = codec.compress(content);
+        System.out.printf("%n%s of %d bytes compressed to %d bytes%n", format, content.length, compressed.length);
+    }
+
+    @Benchmark
+    public byte[] compress() throws IOException {
+        return codec.compress(content);
+    }
+
+    @Benchmark
+    public byte[] decompress() throws IOException {
+        return codec.decompress(compressed);
+    }
+}
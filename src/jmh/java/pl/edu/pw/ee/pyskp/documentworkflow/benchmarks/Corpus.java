@@ -0,0 +1,190 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.benchmarks;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generated documents resembling ones kept in projects: paragraphs of words with skewed frequencies, repeated
+ * headings and spreadsheets of mixed text and numeric cells. Generation is deterministic, so results of different
+ * runs are comparable.
+ */
+final class Corpus {
+    private static final long SEED = 20170106L;
+    private static final int VOCABULARY_SIZE = 5000;
+    private static final int SPREADSHEET_COLUMNS = 8;
+
+    private static final String[] SYLLABLES = {
+            "da", "ta", "ne", "ro", "ki", "mu", "so", "la", "pe", "wi", "za", "to", "ri", "no", "ba", "ce"
+    };
+
+    private final Random random = new Random(SEED);
+    private final String[] vocabulary = new String[VOCABULARY_SIZE];
+
+    Corpus() {
+        for (int i = 0; i < VOCABULARY_SIZE; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int syllables = 1 + random.nextInt(4); syllables > 0; syllables--) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            vocabulary[i] = word.toString();
+        }
+    }
+
+    /**
+     * Returns paragraphs of text. Every 20th one is a heading repeated throughout the document.
+     */
+    List<String> paragraphs(int count) {
+        List<String> paragraphs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            paragraphs.add(i % 20 == 0 ? "Section " + (i / 20 % 10) : sentence(5 + random.nextInt(30)));
+        }
+        return paragraphs;
+    }
+
+    /**
+     * Returns copy of paragraphs with given fraction of them replaced, inserted or deleted, in runs of up to 5.
+     */
+    List<String> edit(List<String> paragraphs, double editedFraction) {
+        List<String> edited = new ArrayList<>(paragraphs.size());
+        int i = 0;
+        while (i < paragraphs.size()) {
+            if (random.nextDouble() >= editedFraction / 3) {
+                edited.add(paragraphs.get(i++));
+                continue;
+            }
+            int run = 1 + random.nextInt(5);
+            switch (random.nextInt(3)) {
+                case 0:
+                    for (int j = 0; j < run && i < paragraphs.size(); j++, i++) {
+                        edited.add(sentence(5 + random.nextInt(30)));
+                    }
+                    break;
+                case 1:
+                    for (int j = 0; j < run; j++) {
+                        edited.add(sentence(5 + random.nextInt(30)));
+                    }
+                    break;
+                default:
+                    i += run;
+            }
+        }
+        return edited;
+    }
+
+    byte[] document(DocumentFormat format, int paragraphs) throws IOException {
+        switch (format) {
+            case DOCX:
+                return docx(paragraphs(paragraphs));
+            case XLSX:
+                return xlsx(paragraphs);
+            case ODT:
+                return odt(paragraphs(paragraphs));
+            default:
+                return String.join("\n", paragraphs(paragraphs)).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private byte[] docx(List<String> paragraphs) throws IOException {
+        try (XWPFDocument document = new XWPFDocument()) {
+            for (String paragraph : paragraphs) {
+                document.createParagraph().createRun().setText(paragraph);
+            }
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            document.write(output);
+            return output.toByteArray();
+        }
+    }
+
+    private byte[] xlsx(int rows) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook();
+        try {
+            Sheet sheet = workbook.createSheet("Measurements");
+            for (int r = 0; r < rows; r++) {
+                Row row = sheet.createRow(r);
+                for (int c = 0; c < SPREADSHEET_COLUMNS; c++) {
+                    if (c % 2 == 0) {
+                        row.createCell(c).setCellValue(word());
+                    } else {
+                        row.createCell(c).setCellValue(random.nextInt(100000) / 100.0);
+                    }
+                }
+            }
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            workbook.write(output);
+            return output.toByteArray();
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private byte[] odt(List<String> paragraphs) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(output)) {
+            byte[] mimetype = "application/vnd.oasis.opendocument.text".getBytes(StandardCharsets.US_ASCII);
+            ZipEntry mimetypeEntry = new ZipEntry("mimetype");
+            mimetypeEntry.setMethod(ZipEntry.STORED);
+            mimetypeEntry.setSize(mimetype.length);
+            CRC32 crc = new CRC32();
+            crc.update(mimetype);
+            mimetypeEntry.setCrc(crc.getValue());
+            zip.putNextEntry(mimetypeEntry);
+            zip.write(mimetype);
+            zip.closeEntry();
+
+            zip.putNextEntry(new ZipEntry("META-INF/manifest.xml"));
+            zip.write(("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                    + "<manifest:manifest xmlns:manifest=\"urn:oasis:names:tc:opendocument:xmlns:manifest:1.0\">"
+                    + "<manifest:file-entry manifest:full-path=\"/\""
+                    + " manifest:media-type=\"application/vnd.oasis.opendocument.text\"/>"
+                    + "<manifest:file-entry manifest:full-path=\"content.xml\" manifest:media-type=\"text/xml\"/>"
+                    + "</manifest:manifest>").getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+
+            zip.putNextEntry(new ZipEntry("content.xml"));
+            StringBuilder content = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                    + "<office:document-content"
+                    + " xmlns:office=\"urn:oasis:names:tc:opendocument:xmlns:office:1.0\""
+                    + " xmlns:text=\"urn:oasis:names:tc:opendocument:xmlns:text:1.0\" office:version=\"1.2\">"
+                    + "<office:body><office:text>");
+            for (String paragraph : paragraphs) {
+                content.append("<text:p>").append(paragraph).append("</text:p>");
+            }
+            content.append("</office:text></office:body></office:document-content>");
+            zip.write(content.toString().getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        return output.toByteArray();
+    }
+
+    private String sentence(int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(word());
+        }
+        return sentence.append('.').toString();
+    }
+
+    /**
+     * Returns word with frequency roughly inversely proportional to its rank, as in natural language.
+     */
+    private String word() {
+        int rank = (int) Math.pow(VOCABULARY_SIZE, random.nextDouble());
+        return vocabulary[rank - 1];
+    }
+}
@@ -0,0 +1,69 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.DiffConfig;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Difference;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.impl.DifferenceServiceImpl;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.HistogramLineDiffAlgorithm;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.LineDiffAlgorithm;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.MyersLineDiffAlgorithm;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.ParallelLineDiffAlgorithm;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Differences between consecutive versions of parsed document, with 2% of its lines edited.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DiffBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int lines;
+
+    @Param({"myers", "histogram", "parallel"})
+    public String algorithm;
+
+    private LineDiffAlgorithm lineDiffAlgorithm;
+    private DifferenceServiceImpl differenceService;
+    private List<String> previousLines;
+    private List<String> currentLines;
+
+    @Setup
+    public void setUp() {
+        DiffConfig diffConfig = new DiffConfig();
+        switch (algorithm) {
+            case "myers":
+                lineDiffAlgorithm = new MyersLineDiffAlgorithm();
+                break;
+            case "histogram":
+                lineDiffAlgorithm = new HistogramLineDiffAlgorithm();
+                break;
+            default:
+                lineDiffAlgorithm = new ParallelLineDiffAlgorithm(new HistogramLineDiffAlgorithm(),
+                        Runtime.getRuntime().availableProcessors(), 2,
+                        diffConfig.getParallel().getMinSegmentLines());
+        }
+        differenceService = new DifferenceServiceImpl(lineDiffAlgorithm, diffConfig, new SimpleMeterRegistry());
+        Corpus corpus = new Corpus();
+        previousLines = corpus.paragraphs(lines);
+        currentLines = corpus.edit(previousLines, 0.02);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (lineDiffAlgorithm instanceof ParallelLineDiffAlgorithm) {
+            ((ParallelLineDiffAlgorithm) lineDiffAlgorithm).close();
+        }
+    }
+
+    @Benchmark
+    public List<Difference> getDifferencesBetweenTwoFiles() {
+        return differenceService.getDifferencesBetweenTwoFiles(previousLines, currentLines);
+    }
+}
@@ -0,0 +1,8 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.benchmarks;
+
+/**
+ * Formats of generated documents. Plain text stands for content already parsed from documents.
+ */
+public enum DocumentFormat {
+    TEXT, DOCX, XLSX, ODT
+}
@@ -0,0 +1,62 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.benchmarks;
+
+import org.apache.tika.Tika;
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.TikaConfiguration;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.TikaService;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extraction of lines and detection of media type of generated documents. Parsers configured by the application
+ * can be compared with default ones of Tika, for example in heap allocated per operation, reported with
+ * {@code -prof gc}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExtractionBenchmark {
+    @Param({"DOCX", "XLSX", "ODT"})
+    public DocumentFormat format;
+
+    /**
+     * Number of paragraphs of text documents or rows of spreadsheets.
+     */
+    @Param({"100", "1000", "10000"})
+    public int paragraphs;
+
+    @Param({"application", "default"})
+    public String parsers;
+
+    private TikaService tikaService;
+    private byte[] document;
+
+    @Setup
+    public void setUp() throws Exception {
+        TikaConfiguration tikaConfiguration = new TikaConfiguration();
+        TikaConfig tikaConfig = "application".equals(parsers)
+                ? tikaConfiguration.tikaConfig()
+                : TikaConfig.getDefaultConfig();
+        Tika tika = tikaConfiguration.tika(tikaConfig, Optional.empty());
+        tikaService = new TikaService(tika);
+        document = new Corpus().document(format, paragraphs);
+    }
+
+    @Benchmark
+    public int extractLines(Blackhole blackhole) throws Exception {
+        return tikaService.extractLines(TikaInputStream.get(document), new Metadata(), blackhole::consume);
+    }
+
+    @Benchmark
+    public String detectMediaType() throws Exception {
+        return tikaService.detectMediaType(TikaInputStream.get(document));
+    }
+}
@@ -0,0 +1,38 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.HistogramLineDiffAlgorithm;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.LineDiffAlgorithm;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.MyersLineDiffAlgorithm;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.ParallelLineDiffAlgorithm;
+
+@Configuration
+@EnableConfigurationProperties(DiffConfig.class)
+public class DiffBeans {
+    @Bean
+    @ConditionalOnProperty(name = "dws.diff.algorithm", havingValue = "myers", matchIfMissing = true)
+    public LineDiffAlgorithm myersLineDiffAlgorithm(DiffConfig diffConfig) {
+        return parallelize(new MyersLineDiffAlgorithm(), diffConfig);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "dws.diff.algorithm", havingValue = "histogram")
+    public LineDiffAlgorithm histogramLineDiffAlgorithm(DiffConfig diffConfig) {
+        return parallelize(new HistogramLineDiffAlgorithm(), diffConfig);
+    }
+
+    /**
+     * Returns algorithm comparing segments of large versions in parallel by given one, if enabled.
+     */
+    private static LineDiffAlgorithm parallelize(LineDiffAlgorithm algorithm, DiffConfig diffConfig) {
+        DiffConfig.Parallel parallel = diffConfig.getParallel();
+        if (!parallel.isEnabled()) {
+            return algorithm;
+        }
+        int threads = parallel.getThreads() > 0 ? parallel.getThreads() : Runtime.getRuntime().availableProcessors();
+        return new ParallelLineDiffAlgorithm(algorithm, threads, parallel.getMinLines(), parallel.getMinSegmentLines());
+    }
+}
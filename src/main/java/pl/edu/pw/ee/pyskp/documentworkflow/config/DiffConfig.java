@@ -0,0 +1,144 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("dws.diff")
+@Validated
+public class DiffConfig {
+    /**
+     * Algorithm comparing lines of versions, {@code myers} or {@code histogram}.
+     */
+    @NotBlank
+    private String algorithm = "myers";
+
+    @Valid
+    private Parallel parallel = new Parallel();
+
+    @Valid
+    private Budget budget = new Budget();
+
+    @Valid
+    private Refinement refinement = new Refinement();
+
+    @Valid
+    private Cache cache = new Cache();
+
+    @Valid
+    private Hunks hunks = new Hunks();
+
+    @Valid
+    private IntraLine intraLine = new IntraLine();
+
+    /**
+     * Comparison of large versions split into segments at lines occurring once in both of them.
+     */
+    @Data
+    public static class Parallel {
+        private boolean enabled = false;
+
+        /**
+         * Number of threads comparing segments, number of processors if 0.
+         */
+        @Min(0)
+        private int threads = 0;
+
+        /**
+         * Minimal number of lines of both versions compared in parallel.
+         */
+        @Min(2)
+        private int minLines = 100_000;
+
+        /**
+         * Minimal number of lines of both versions in single segment.
+         */
+        @Min(1)
+        private int minSegmentLines = 10_000;
+    }
+
+    /**
+     * Limits of single diff, computed when version is parsed, between versions compared on request, or within lines
+     * of single hunk. Differences exceeding them are approximated.
+     */
+    @Data
+    public static class Budget {
+        /**
+         * Limit of compared lines, not limited if 0.
+         */
+        @Min(0)
+        private long maxComparisons = 2_000_000_000L;
+
+        @NotNull
+        private Duration timeout = Duration.ofSeconds(10);
+    }
+
+    /**
+     * Exact differences computed in background in place of approximated ones.
+     */
+    @Data
+    public static class Refinement {
+        private boolean enabled = true;
+
+        @NotNull
+        private Duration timeout = Duration.ofMinutes(10);
+    }
+
+    /**
+     * Differences computed between versions, which are not consecutive, and within modified lines.
+     */
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+
+        /**
+         * Approximate size of cached differences, and separately of cached changes within lines.
+         */
+        @NotNull
+        private DataSize size = DataSize.ofMegabytes(16);
+    }
+
+    /**
+     * Differences sent as hunks, without unchanged lines far from them.
+     */
+    @Data
+    public static class Hunks {
+        /**
+         * Default number of unchanged lines around differences.
+         */
+        @Min(0)
+        private int context = 3;
+
+        @Min(0)
+        private int maxContext = 1000;
+
+        /**
+         * Default number of hunks in single response.
+         */
+        @Min(1)
+        private int pageSize = 20;
+
+        @Min(1)
+        private int maxPageSize = 200;
+    }
+
+    /**
+     * Comparison of modified lines word by word or character by character.
+     */
+    @Data
+    public static class IntraLine {
+        /**
+         * Longer lines are marked as changed as a whole.
+         */
+        @Min(1)
+        private int maxLineLength = 10000;
+    }
+}
@@ -0,0 +1,88 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("dws.parsing")
+@Validated
+public class ParsingConfig {
+    /**
+     * Number of threads extracting text and computing differences of new versions.
+     */
+    @Min(1)
+    private int threads = 2;
+
+    /**
+     * Number of versions waiting for parsing. Versions not fitting into queue are parsed by pending versions sweep.
+     */
+    @Min(1)
+    private int queueCapacity = 100;
+
+    /**
+     * Pending versions saved at least this time ago, which are not being parsed, are queued again by sweep.
+     */
+    @NotNull
+    private Duration retryDelay = Duration.ofMinutes(1);
+
+    @NotBlank
+    private String pendingSweepCron = "0 * * * * *";
+
+    @Valid
+    private Cache cache = new Cache();
+
+    @Valid
+    private Fork fork = new Fork();
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+
+        /**
+         * Approximate size of extracted lines kept in memory.
+         */
+        @NotNull
+        private DataSize memorySize = DataSize.ofMegabytes(64);
+
+        /**
+         * Extracted lines, which are bigger after compression, are not saved in database.
+         */
+        @NotNull
+        private DataSize maxPersistedSize = DataSize.ofMegabytes(4);
+    }
+
+    /**
+     * Runs extraction in pool of forked JVMs, so parsing of pathological file cannot exhaust memory or CPU of the
+     * server. Crashed and timed out workers are replaced by new ones.
+     */
+    @Data
+    public static class Fork {
+        private boolean enabled = false;
+
+        @Min(1)
+        private int poolSize = 2;
+
+        /**
+         * Maximum heap of single worker JVM.
+         */
+        @NotNull
+        private DataSize maxHeap = DataSize.ofMegabytes(512);
+
+        /**
+         * Worker parsing single document longer than this is killed.
+         */
+        @NotNull
+        private Duration parseTimeout = Duration.ofMinutes(1);
+
+        @NotBlank
+        private String javaCommand = "java";
+    }
+}
@@ -0,0 +1,54 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.config;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Hands resources kept in local files over to Tomcat, which sends them with sendfile, so the operating system copies
+ * the file to the socket without passing its content through heap buffers. Resources are written as usual, if
+ * connector does not support sendfile.
+ */
+public class SendfileResourceHttpMessageConverter extends ResourceHttpMessageConverter {
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Override
+    protected void writeInternal(Resource resource, HttpOutputMessage outputMessage) throws IOException {
+        Optional<HttpServletRequest> request = getSendfileRequest();
+        if (!request.isPresent() || !resource.isFile()) {
+            super.writeInternal(resource, outputMessage);
+            return;
+        }
+        File file = resource.getFile();
+        if (outputMessage.getHeaders().getContentLength() != file.length()) {
+            super.writeInternal(resource, outputMessage);
+            return;
+        }
+        // attributes are read by connector when response is committed, after headers are written
+        request.get().setAttribute(SENDFILE_FILENAME, file.getAbsolutePath());
+        request.get().setAttribute(SENDFILE_START, 0L);
+        request.get().setAttribute(SENDFILE_END, file.length());
+    }
+
+    private static Optional<HttpServletRequest> getSendfileRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return Optional.empty();
+        }
+        return Optional.of(((ServletRequestAttributes) attributes).getRequest())
+                .filter(request -> Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT)))
+                .filter(request -> !HttpMethod.HEAD.matches(request.getMethod()));
+    }
+}
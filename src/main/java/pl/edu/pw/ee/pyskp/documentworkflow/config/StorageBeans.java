@@ -0,0 +1,46 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.config;
+
+import com.mongodb.client.gridfs.GridFSBuckets;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.mongodb.MongoDbFactory;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.BlobStore;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.ColdBlobStore;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.FileSystemBlobStore;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.GridFsBlobStore;
+
+import java.nio.file.Paths;
+
+@RequiredArgsConstructor
+@Configuration
+@EnableConfigurationProperties(StorageConfig.class)
+@EnableScheduling
+public class StorageBeans {
+    private final StorageConfig storage;
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "dws.storage.type", havingValue = "gridfs", matchIfMissing = true)
+    public BlobStore gridFsBlobStore(MongoDbFactory mongoDbFactory) {
+        return new GridFsBlobStore(GridFSBuckets.create(mongoDbFactory.getDb(), storage.getGridFs().getBucket()));
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "dws.storage.type", havingValue = "filesystem")
+    public BlobStore fileSystemBlobStore() {
+        StorageConfig.FileSystem fileSystem = storage.getFileSystem();
+        return new FileSystemBlobStore(Paths.get(fileSystem.getRoot()), fileSystem.getMaxMappedSize().toBytes());
+    }
+
+    @Bean
+    public ColdBlobStore coldBlobStore() {
+        return new ColdBlobStore(new FileSystemBlobStore(Paths.get(storage.getTiering().getColdRoot()),
+                storage.getFileSystem().getMaxMappedSize().toBytes()));
+    }
+}
@@ -0,0 +1,186 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ContentType;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.CompressionCodec;
+
+import javax.validation.Valid;
+import javax.validation.constraints.*;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties("dws.storage")
+@Validated
+public class StorageConfig {
+    @NotBlank
+    private String type = "gridfs";
+
+    @Valid
+    private GridFs gridFs = new GridFs();
+
+    @Valid
+    private FileSystem fileSystem = new FileSystem();
+
+    @Valid
+    private Delta delta = new Delta();
+
+    @Valid
+    private ParsedContent parsedContent = new ParsedContent();
+
+    @Valid
+    private Compression compression = new Compression();
+
+    @Valid
+    private Tiering tiering = new Tiering();
+
+    @Valid
+    private Scrub scrub = new Scrub();
+
+    @Data
+    public static class GridFs {
+        @NotBlank
+        private String bucket = "versionContents";
+    }
+
+    @Data
+    public static class FileSystem {
+        @NotBlank
+        private String root = "blobs";
+
+        /**
+         * Blobs not larger than this size are read through memory mapping.
+         */
+        @NotNull
+        private DataSize maxMappedSize = DataSize.ofMegabytes(16);
+    }
+
+    @Data
+    public static class Delta {
+        private boolean enabled = false;
+
+        /**
+         * Every n-th content in chain of versions is stored as full snapshot.
+         */
+        @Min(1)
+        private int snapshotInterval = 10;
+
+        /**
+         * Contents bigger than this size are always stored as full snapshots, as deltas are computed in memory.
+         */
+        @NotNull
+        private DataSize maxContentSize = DataSize.ofMegabytes(64);
+
+        /**
+         * Delta is stored only if its size does not exceed given fraction of size of the content.
+         */
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        private double maxSizeRatio = 0.5;
+    }
+
+    @Data
+    public static class ParsedContent {
+        /**
+         * Number of lines parsed from version content stored in one chunk.
+         */
+        @Min(1)
+        private int chunkSize = 1000;
+    }
+
+    @Data
+    public static class Compression {
+        /**
+         * Codecs used for stored binaries of given content types. Binaries of other types are not compressed.
+         */
+        @NotNull
+        private Map<ContentType, CompressionCodec> content = new EnumMap<>(ContentType.class);
+
+        /**
+         * Codecs used for text parsed from documents of given content types. Compressed text is not covered
+         * by full-text search.
+         */
+        @NotNull
+        private Map<ContentType, CompressionCodec> parsedContent = new EnumMap<>(ContentType.class);
+
+        public CompressionCodec getContentCodec(ContentType contentType) {
+            return getCodec(content, contentType);
+        }
+
+        public CompressionCodec getParsedContentCodec(ContentType contentType) {
+            return getCodec(parsedContent, contentType);
+        }
+
+        private static CompressionCodec getCodec(Map<ContentType, CompressionCodec> codecs, ContentType contentType) {
+            return contentType != null ? codecs.getOrDefault(contentType, CompressionCodec.NONE) : CompressionCodec.NONE;
+        }
+    }
+
+    @Data
+    public static class Tiering {
+        private boolean enabled = false;
+
+        /**
+         * Root directory of compressed archive of cold data.
+         */
+        @NotBlank
+        private String coldRoot = "blobs-cold";
+
+        /**
+         * Data is moved to cold tier only if it has not been saved or promoted for this time.
+         */
+        @NotNull
+        private Duration minAge = Duration.ofDays(30);
+
+        /**
+         * Number of latest versions of each file, which are always kept in hot tier.
+         */
+        @Min(1)
+        private int keepLatest = 2;
+
+        @NotBlank
+        private String demotionCron = "0 0 3 * * *";
+    }
+
+    @Data
+    public static class Scrub {
+        private boolean enabled = false;
+
+        @NotBlank
+        private String cron = "0 0 2 * * *";
+
+        /**
+         * Number of stored contents fetched from database at once.
+         */
+        @Min(1)
+        private int batchSize = 100;
+
+        /**
+         * Number of threads computing check sums.
+         */
+        @Min(1)
+        private int threads = 1;
+
+        /**
+         * Maximal rate of reading stored data by all threads per second. Zero means no limit.
+         */
+        @NotNull
+        private DataSize maxReadRate = DataSize.ofMegabytes(10);
+
+        /**
+         * Pause after every batch, which leaves CPU and disk to requests.
+         */
+        @NotNull
+        private Duration pauseBetweenBatches = Duration.ofMillis(500);
+
+        /**
+         * Number of recent mismatches kept for the report.
+         */
+        @Min(1)
+        private int reportedMismatches = 100;
+    }
+}
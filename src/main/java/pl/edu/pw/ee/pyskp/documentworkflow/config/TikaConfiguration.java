@@ -3,6 +3,10 @@ package pl.edu.pw.ee.pyskp.documentworkflow.config;
 import org.apache.tika.Tika;
 import org.apache.tika.config.TikaConfig;
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.fork.ForkParser;
+import org.apache.tika.parser.AutoDetectParser;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
@@ -10,13 +14,37 @@ import org.springframework.core.io.Resource;
 import org.xml.sax.SAXException;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Optional;
 
 @Configuration
+@EnableConfigurationProperties(ParsingConfig.class)
 public class TikaConfiguration {
+    public static final String CONFIG_LOCATION = "tika-config.xml";
+
+    @Bean
+    public TikaConfig tikaConfig() throws TikaException, IOException, SAXException {
+        Resource resource = new ClassPathResource(CONFIG_LOCATION);
+        return new TikaConfig(resource.getInputStream());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "dws.parsing.fork.enabled", havingValue = "true")
+    public ForkParser forkParser(TikaConfig tikaConfig, ParsingConfig parsingConfig) {
+        ParsingConfig.Fork fork = parsingConfig.getFork();
+        ForkParser forkParser = new ForkParser(TikaConfiguration.class.getClassLoader(),
+                new AutoDetectParser(tikaConfig));
+        forkParser.setPoolSize(fork.getPoolSize());
+        forkParser.setJavaCommand(Arrays.asList(fork.getJavaCommand(),
+                "-Xmx" + fork.getMaxHeap().toMegabytes() + "m", "-XX:+ExitOnOutOfMemoryError"));
+        forkParser.setServerParseTimeoutMillis(fork.getParseTimeout().toMillis());
+        return forkParser;
+    }
+
     @Bean
-    public Tika tika() throws TikaException, IOException, SAXException {
-        Resource resource = new ClassPathResource("tika-config.xml");
-        TikaConfig tikaConfig = new TikaConfig(resource.getInputStream());
-        return new Tika(tikaConfig);
+    public Tika tika(TikaConfig tikaConfig, Optional<ForkParser> forkParser) {
+        return forkParser
+                .map(parser -> new Tika(tikaConfig.getDetector(), parser))
+                .orElseGet(() -> new Tika(tikaConfig));
     }
 }
@@ -0,0 +1,63 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+@Data
+@ConfigurationProperties("dws.upload")
+@Validated
+public class UploadConfig {
+    @Valid
+    private Detection detection = new Detection();
+
+    @Valid
+    private Archive archive = new Archive();
+
+    /**
+     * Detection of media type of uploaded contents, while they are being stored.
+     */
+    @Data
+    public static class Detection {
+        /**
+         * Number of threads detecting types, which bounds number of uploads stored at once.
+         */
+        @Min(1)
+        private int threads = 8;
+
+        /**
+         * Number of uploads waiting for detection thread, further uploads are rejected.
+         */
+        @Min(0)
+        private int queueCapacity = 32;
+    }
+
+    /**
+     * Import of files from ZIP archives.
+     */
+    @Data
+    public static class Archive {
+        /**
+         * Number of threads storing entries, shared by all imports.
+         */
+        @Min(1)
+        private int threads = 4;
+
+        /**
+         * Entries above this number are not imported.
+         */
+        @Min(1)
+        private int maxEntries = 500;
+
+        /**
+         * Entries bigger after decompression are not imported.
+         */
+        @NotNull
+        private DataSize maxEntrySize = DataSize.ofMegabytes(100);
+    }
+}
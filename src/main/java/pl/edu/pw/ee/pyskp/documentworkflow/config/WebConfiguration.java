@@ -0,0 +1,18 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+
+@Configuration
+@EnableConfigurationProperties(UploadConfig.class)
+public class WebConfiguration {
+    /**
+     * Replaces default converter of resources, so version contents kept in local files are sent with sendfile.
+     */
+    @Bean
+    public ResourceHttpMessageConverter resourceHttpMessageConverter() {
+        return new SendfileResourceHttpMessageConverter();
+    }
+}
@@ -7,11 +7,14 @@ import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import pl.edu.pw.ee.pyskp.documentworkflow.dtos.file.ImportedFileDTO;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.file.NewFileForm;
 import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.ResourceNotFoundException;
 import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.UnknownContentType;
 import pl.edu.pw.ee.pyskp.documentworkflow.services.FilesMetadataService;
 
+import java.util.List;
+
 /**
  * Created by piotr on 04.01.17.
  */
@@ -35,4 +38,15 @@ public class FilesMetadataController {
         ObjectId fileId = filesMetadataService.createNewFileFromForm(newFileForm, projectId, taskId);
         return fileId.toString();
     }
+
+    @PostMapping(path = "/archive", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("@securityService.isTaskParticipant(#taskId)")
+    public List<ImportedFileDTO> importFilesFromArchive(@RequestPart(name = "archive") MultipartFile archive,
+                                                        @RequestPart(name = "versionString") String versionString,
+                                                        @PathVariable ObjectId taskId,
+                                                        @PathVariable ObjectId projectId)
+            throws ResourceNotFoundException {
+        return filesMetadataService.importFilesFromArchive(archive, versionString, projectId, taskId);
+    }
 }
@@ -16,7 +16,9 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.error.ErrorMessageDTO;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.validation.ValidationErrorDTO;
+import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.InvalidLineRange;
 import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.ResourceNotFoundException;
+import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.UnexpectedContentType;
 import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.UnknownContentType;
 
 import javax.validation.ConstraintViolation;
@@ -93,6 +95,26 @@ public class RestErrorHandler {
         return new ErrorMessageDTO(ex.getClass().getSimpleName());
     }
 
+    @ExceptionHandler(UnexpectedContentType.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ResponseBody
+    public ValidationErrorDTO handleUnexpectedContentType(UnexpectedContentType ex) {
+        log.error(ex.getLocalizedMessage(), ex);
+        ValidationErrorDTO dto = new ValidationErrorDTO();
+        dto.addFieldError("file", "notCorrectContentType");
+        return dto;
+    }
+
+    @ExceptionHandler(InvalidLineRange.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ResponseBody
+    public ValidationErrorDTO handleInvalidLineRange(InvalidLineRange ex) {
+        log.error(ex.getLocalizedMessage(), ex);
+        ValidationErrorDTO dto = new ValidationErrorDTO();
+        dto.addFieldError("to", "lessThanFrom");
+        return dto;
+    }
+
     @ExceptionHandler(AccessDeniedException.class)
     @ResponseStatus(HttpStatus.FORBIDDEN)
     @ResponseBody
@@ -3,24 +3,32 @@ package pl.edu.pw.ee.pyskp.documentworkflow.controllers;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.bson.types.ObjectId;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import pl.edu.pw.ee.pyskp.documentworkflow.dtos.file.FileContentDTO;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.version.DiffData;
+import pl.edu.pw.ee.pyskp.documentworkflow.dtos.version.DiffHunksDTO;
+import pl.edu.pw.ee.pyskp.documentworkflow.dtos.version.InlineDiffDTO;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.version.NewVersionForm;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.version.VersionInfoDTO;
+import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.InvalidLineRange;
 import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.ResourceNotFoundException;
+import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.UnexpectedContentType;
 import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.VersionNotFoundException;
 import pl.edu.pw.ee.pyskp.documentworkflow.services.FilesMetadataService;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.VersionContent;
 import pl.edu.pw.ee.pyskp.documentworkflow.services.VersionService;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.IntraLineGranularity;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
-import java.io.InputStream;
 import java.util.Date;
 
 /**
@@ -28,6 +36,7 @@ import java.util.Date;
  */
 @RequiredArgsConstructor
 @RestController
+@Validated
 @RequestMapping("/api/projects/{projectId}/tasks/{taskId}/files/{fileId}/versions")
 public class VersionController {
     @NonNull
@@ -47,23 +56,67 @@ public class VersionController {
     @GetMapping("/{versionSaveDateMillis}/diffData")
     @PreAuthorize("@securityService.hasAccessToTask(#taskId)")
     public DiffData getDiffData(@PathVariable ObjectId taskId, @PathVariable ObjectId fileId,
-                                @PathVariable long versionSaveDateMillis) throws VersionNotFoundException {
+                                @PathVariable long versionSaveDateMillis,
+                                @RequestParam(name = "base", required = false) Long baseVersionSaveDateMillis)
+            throws VersionNotFoundException {
+        if (baseVersionSaveDateMillis != null) {
+            return versionService.buildDiffData(fileId, baseVersionSaveDateMillis, versionSaveDateMillis);
+        }
         return versionService.buildDiffData(fileId, versionSaveDateMillis);
     }
 
+    @GetMapping("/{versionSaveDateMillis}/hunks")
+    @PreAuthorize("@securityService.hasAccessToTask(#taskId)")
+    public DiffHunksDTO getDiffHunks(@PathVariable ObjectId taskId, @PathVariable ObjectId fileId,
+                                     @PathVariable long versionSaveDateMillis,
+                                     @RequestParam(name = "base", required = false) Long baseVersionSaveDateMillis,
+                                     @RequestParam(defaultValue = "${dws.diff.hunks.context}") @Min(0) int context,
+                                     @RequestParam(defaultValue = "0") @Min(0) int cursor,
+                                     @RequestParam(defaultValue = "${dws.diff.hunks.page-size}") @Min(1) int limit)
+            throws VersionNotFoundException {
+        return versionService.getDiffHunks(fileId, versionSaveDateMillis, baseVersionSaveDateMillis, context, cursor,
+                limit);
+    }
+
+    @GetMapping("/{versionSaveDateMillis}/hunks/{hunkIndex}/inline")
+    @PreAuthorize("@securityService.hasAccessToTask(#taskId)")
+    public InlineDiffDTO getInlineDiff(@PathVariable ObjectId taskId, @PathVariable ObjectId fileId,
+                                       @PathVariable long versionSaveDateMillis, @PathVariable @Min(0) int hunkIndex,
+                                       @RequestParam(name = "base", required = false) Long baseVersionSaveDateMillis,
+                                       @RequestParam(defaultValue = "${dws.diff.hunks.context}") @Min(0) int context,
+                                       @RequestParam(defaultValue = "WORD") IntraLineGranularity granularity)
+            throws VersionNotFoundException {
+        return versionService.getInlineDiff(fileId, versionSaveDateMillis, baseVersionSaveDateMillis, context,
+                hunkIndex, granularity);
+    }
+
+    @GetMapping("/{versionSaveDateMillis}/lines")
+    @PreAuthorize("@securityService.hasAccessToTask(#taskId)")
+    public FileContentDTO getLines(@PathVariable ObjectId taskId, @PathVariable ObjectId fileId,
+                                   @PathVariable long versionSaveDateMillis,
+                                   @RequestParam @Min(0) int from, @RequestParam @Min(0) int to)
+            throws VersionNotFoundException, InvalidLineRange {
+        if (to < from) {
+            throw new InvalidLineRange(from, to);
+        }
+        return new FileContentDTO(versionService.getParsedFileContentLines(fileId, versionSaveDateMillis, from, to));
+    }
+
     @GetMapping("/{versionSaveDate}/content")
     @PreAuthorize("@securityService.hasAccessToTask(#taskId)")
-    public ResponseEntity<InputStreamResource> getVersionContent(@PathVariable long versionSaveDate,
-                                                                 @PathVariable ObjectId taskId,
-                                                                 @PathVariable ObjectId fileId)
+    public ResponseEntity<Resource> getVersionContent(@PathVariable long versionSaveDate,
+                                                      @PathVariable ObjectId taskId,
+                                                      @PathVariable ObjectId fileId)
             throws ResourceNotFoundException {
-        InputStream fileContent = versionService.getVersionFileContent(fileId, new Date(versionSaveDate));
+        VersionContent versionContent = versionService.getVersionContent(fileId, new Date(versionSaveDate));
         HttpHeaders httpHeaders = new HttpHeaders();
         httpHeaders.setContentType(MediaType.APPLICATION_OCTET_STREAM);
         httpHeaders.setContentDispositionFormData("attachment", filesMetadataService.getFileName(fileId));
         return ResponseEntity.ok()
                 .headers(httpHeaders)
-                .body(new InputStreamResource(fileContent));
+                .eTag(versionContent.getCheckSum())
+                .lastModified(versionContent.getSaveDate().getTime())
+                .body(versionContent.getContent());
     }
 
     @GetMapping("/exists")
@@ -81,7 +134,7 @@ public class VersionController {
                                         @RequestPart("file") @NotNull MultipartFile file,
                                         @RequestPart("versionString") @NotBlank String versionString,
                                         @RequestPart("message") @NotBlank String message)
-            throws ResourceNotFoundException {
+            throws ResourceNotFoundException, UnexpectedContentType {
         NewVersionForm versionForm = new NewVersionForm();
         versionForm.setProjectId(projectId);
         versionForm.setTaskId(taskId);
@@ -0,0 +1,54 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.data.domain;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.CompressionCodec;
+
+import java.util.Date;
+
+/**
+ * Binary content shared by all versions with the same check sum.
+ */
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Document
+public class ContentBlob {
+    @EqualsAndHashCode.Include
+    @Id
+    private String checkSum;
+
+    private String blobId;
+
+    private long size;
+
+    private long referenceCount;
+
+    /**
+     * Check sum of content, against which this blob is stored as binary delta. Empty for full snapshots.
+     */
+    private String baseCheckSum;
+
+    /**
+     * Number of deltas, which have to be applied to the nearest full snapshot to reconstruct this content.
+     */
+    private int chainLength;
+
+    /**
+     * Codec, with which stored blob (full content or delta) has been compressed. Empty for uncompressed blobs.
+     */
+    private CompressionCodec codec;
+
+    /**
+     * Tier, in which {@link #blobId} is kept.
+     */
+    @Indexed
+    private StorageTier tier;
+
+    /**
+     * Date of storing or last promotion to hot tier.
+     */
+    private Date lastAccessDate;
+}
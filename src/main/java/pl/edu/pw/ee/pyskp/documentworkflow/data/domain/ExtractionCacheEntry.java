@@ -0,0 +1,37 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.data.domain;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Lines extracted by Tika from content with given check sum, compressed with deflate. Entries expire after
+ * 90 days.
+ */
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Document
+public class ExtractionCacheEntry {
+    /**
+     * Check sum of content and fingerprint of Tika configuration used for extraction.
+     */
+    @EqualsAndHashCode.Include
+    @Id
+    private String key;
+
+    @ToString.Exclude
+    private byte[] compressedLines;
+
+    /**
+     * Number of extracted lines, empty for entries cached before it has been saved.
+     */
+    private Integer lineCount;
+
+    @Indexed(expireAfterSeconds = 90 * 24 * 60 * 60)
+    private Date creationDate;
+}
@@ -0,0 +1,13 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.data.domain;
+
+/**
+ * State of extraction of text from version content and computing its differences. Versions without status have
+ * been parsed before saving.
+ */
+public enum ParseStatus {
+    PENDING, READY, FAILED;
+
+    public static ParseStatus orReady(ParseStatus status) {
+        return status != null ? status : READY;
+    }
+}
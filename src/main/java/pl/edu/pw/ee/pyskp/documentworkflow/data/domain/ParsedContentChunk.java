@@ -0,0 +1,53 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.data.domain;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.TextIndexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TextScore;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.CompressionCodec;
+
+import java.util.List;
+
+/**
+ * Consecutive lines parsed from content of version. All chunks of version except the last one have the same
+ * number of lines.
+ */
+@Data
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@Document
+@CompoundIndex(name = "version_chunk", def = "{ 'versionId' : 1, 'chunkIndex' : 1 }", unique = true)
+public class ParsedContentChunk {
+    @EqualsAndHashCode.Include
+    @Id
+    private ObjectId id;
+
+    private ObjectId versionId;
+
+    @Indexed
+    private ObjectId fileId;
+
+    private int chunkIndex;
+
+    @ToString.Exclude
+    @TextIndexed
+    private List<String> lines;
+
+    /**
+     * Lines joined with new line characters and compressed with {@link #codec}. Used instead of {@link #lines}
+     * when compression is configured for content type of file, so such chunks are not covered by full-text search.
+     */
+    @ToString.Exclude
+    private byte[] compressedLines;
+
+    private CompressionCodec codec;
+
+    @ToString.Exclude
+    @TextScore
+    private Float score;
+}
@@ -0,0 +1,12 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.data.domain;
+
+/**
+ * Place, where stored data is kept. Data without tier is kept in hot tier.
+ */
+public enum StorageTier {
+    HOT, COLD;
+
+    public static StorageTier orHot(StorageTier tier) {
+        return tier != null ? tier : HOT;
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.TextScore;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.CompressionCodec;
 
 import java.util.Date;
 import java.util.List;
@@ -42,17 +43,63 @@ public class Version {
     @DBRef
     private User author;
 
+    /**
+     * Content of versions saved before introducing content blobs. New versions refer to
+     * {@link ContentBlob} by {@link #checkSum} instead.
+     */
     @ToString.Exclude
     private byte[] fileContent;
 
+    /**
+     * Parsed content of versions saved before introducing chunks of parsed content.
+     */
     @ToString.Exclude
     @TextIndexed(weight = 2)
     private List<String> parsedFileContent;
 
+    /**
+     * Compressed parsed content of versions saved before introducing chunks of parsed content.
+     */
+    @ToString.Exclude
+    private byte[] compressedParsedFileContent;
+
+    private CompressionCodec parsedFileContentCodec;
+
+    /**
+     * Number of lines of parsed content kept in {@link ParsedContentChunk}s. Empty for versions with inline parsed
+     * content.
+     */
+    private Integer lineCount;
+
+    private Integer chunkSize;
+
+    /**
+     * Tier of parsed content. Parsed content of versions in cold tier is kept in cold blob store under
+     * {@link #coldParsedFileContentBlobId}.
+     */
+    private StorageTier tier;
+
+    private String coldParsedFileContentBlobId;
+
+    /**
+     * Date of last promotion of parsed content to hot tier.
+     */
+    private Date lastAccessDate;
+
+    @Indexed
     private String checkSum;
 
+    @Indexed
+    private ParseStatus parseStatus;
+
     private List<Difference> differences;
 
+    /**
+     * Differences were approximated, because exact ones exceeded their budget. They are replaced by exact ones
+     * computed in background.
+     */
+    private boolean approximateDifferences;
+
     @ToString.Exclude
     @TextScore
     private Float score;
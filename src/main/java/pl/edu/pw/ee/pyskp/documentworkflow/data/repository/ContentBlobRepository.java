@@ -0,0 +1,7 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.data.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ContentBlob;
+
+public interface ContentBlobRepository extends MongoRepository<ContentBlob, String> {
+}
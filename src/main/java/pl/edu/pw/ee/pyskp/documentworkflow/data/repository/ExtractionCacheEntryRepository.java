@@ -0,0 +1,7 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.data.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ExtractionCacheEntry;
+
+public interface ExtractionCacheEntryRepository extends MongoRepository<ExtractionCacheEntry, String> {
+}
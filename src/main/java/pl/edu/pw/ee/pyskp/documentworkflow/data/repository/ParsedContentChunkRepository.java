@@ -0,0 +1,21 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.data.repository;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ParsedContentChunk;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ParsedContentChunkRepository extends MongoRepository<ParsedContentChunk, ObjectId> {
+    List<ParsedContentChunk> findByVersionIdOrderByChunkIndex(ObjectId versionId);
+
+    @Query("{ 'versionId' : ?0, 'chunkIndex' : { $gte : ?1, $lte : ?2 } }")
+    List<ParsedContentChunk> findByVersionIdAndChunkIndexInRange(ObjectId versionId, int firstChunkIndex,
+                                                                 int lastChunkIndex);
+
+    void deleteByVersionId(ObjectId versionId);
+
+    void deleteByFileIdIn(Collection<ObjectId> fileIds);
+}
@@ -1,9 +1,12 @@
 package pl.edu.pw.ee.pyskp.documentworkflow.data.repository;
 
 import org.bson.types.ObjectId;
-import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.FileMetadata;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.StorageTier;
 import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Version;
 
 import java.util.Collection;
@@ -16,22 +19,50 @@ import java.util.stream.Stream;
  * Created by piotr on 06.01.17.
  */
 public interface VersionRepository extends MongoRepository<Version, ObjectId> {
+    /**
+     * Projection of version without its content and parsed content.
+     */
+    String METADATA_FIELDS = "{ 'fileContent' : 0, 'parsedFileContent' : 0, 'compressedParsedFileContent' : 0 }";
+
     void deleteByFile(FileMetadata file);
 
-    List<Version> findByFile(FileMetadata file);
+    @Query(value = "{ 'file.$id' : ?0 }", fields = METADATA_FIELDS)
+    List<Version> findMetadataByFileId(ObjectId fileId);
 
     long countByFile(FileMetadata file);
 
-    List<Version> findByFile_IdAndSaveDateLessThanEqualOrderBySaveDateDesc(ObjectId fileId, Date saveDate);
+    List<Version> findTop2ByFile_IdAndSaveDateLessThanEqualOrderBySaveDateDesc(ObjectId fileId, Date saveDate);
+
+    @Query(value = "{ 'file.$id' : ?0, 'saveDate' : { $lte : ?1 } }", fields = METADATA_FIELDS)
+    List<Version> findMetadataByFileIdAndSaveDateLessThanEqual(ObjectId fileId, Date saveDate, Pageable pageable);
+
+    void deleteByFileIn(Collection<FileMetadata> files);
+
+    @Query(value = "{ 'file.$id' : { $in : ?0 }, 'fileContent' : { $exists : false } }", fields = "{ 'checkSum' : 1 }")
+    List<Version> findCheckSumsOfStoredContentByFileIdIn(Collection<ObjectId> fileIds);
+
+    @Query(value = "{ 'file.$id' : { $in : ?0 }, 'coldParsedFileContentBlobId' : { $exists : true } }",
+            fields = "{ 'coldParsedFileContentBlobId' : 1 }")
+    List<Version> findColdParsedContentsByFileIdIn(Collection<ObjectId> fileIds);
 
-    void deleteByFileIn(List<FileMetadata> files);
+    boolean existsByCheckSumAndTierNot(String checkSum, StorageTier tier);
+
+    long countByFile_IdAndSaveDateGreaterThan(ObjectId fileId, Date saveDate);
+
+    @Query(value = "{ 'fileContent' : { $exists : true } }", fields = "{ 'file' : 1, 'fileContent' : 1 }")
+    Stream<Version> findWithLegacyContent();
 
     Optional<Version> findOneByFile_IdAndSaveDate(ObjectId fileId, Date saveDate);
 
     Optional<Version> findTopByFileOrderBySaveDateDesc(FileMetadata fileMetadata);
 
+    Optional<Version> findTopByFile_IdAndSaveDateLessThanOrderBySaveDateDesc(ObjectId fileId, Date saveDate);
+
+    Optional<Version> findTopByFile_IdAndSaveDateGreaterThanOrderBySaveDate(ObjectId fileId, Date saveDate);
+
+    @Query(value = "{ 'parseStatus' : 'PENDING', 'saveDate' : { $lt : ?0 } }", fields = "{ '_id' : 1 }")
+    List<Version> findPendingSavedBefore(Date saveDate, Sort sort);
+
     boolean existsByFile_IdAndVersionString(ObjectId fileId, String versionString);
 
-    @SuppressWarnings("SpringDataRepositoryMethodParametersInspection")
-    Stream<Version> findByFileInOrderByScoreDesc(Collection<FileMetadata> files, TextCriteria criteria);
 }
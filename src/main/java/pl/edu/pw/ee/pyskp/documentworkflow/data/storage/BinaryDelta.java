@@ -0,0 +1,184 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.data.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Binary delta in spirit of VCDIFF. Target content is described as a sequence of copies of base ranges
+ * and literal additions. Matching ranges are found with rolling hash of fixed-size blocks of base.
+ */
+public final class BinaryDelta {
+    private static final int BLOCK_SIZE = 16;
+    private static final int HASH_MULTIPLIER = 31;
+    private static final int HASH_POWER = power(HASH_MULTIPLIER, BLOCK_SIZE - 1);
+    private static final int COPY = 1;
+    private static final int ADD = 2;
+
+    private BinaryDelta() {
+    }
+
+    public static byte[] encode(byte[] base, byte[] target) {
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        writeVarInt(delta, target.length);
+        if (base.length < BLOCK_SIZE || target.length < BLOCK_SIZE) {
+            writeAdd(delta, target, 0, target.length);
+            return delta.toByteArray();
+        }
+        BlockIndex index = new BlockIndex(base);
+        int literalStart = 0;
+        int position = 0;
+        int hash = hash(target, 0);
+        while (position + BLOCK_SIZE <= target.length) {
+            int candidate = index.find(hash);
+            if (candidate >= 0 && blockMatches(base, candidate, target, position)) {
+                int start = position;
+                int baseStart = candidate;
+                while (start > literalStart && baseStart > 0 && base[baseStart - 1] == target[start - 1]) {
+                    start--;
+                    baseStart--;
+                }
+                int end = position + BLOCK_SIZE;
+                int baseEnd = candidate + BLOCK_SIZE;
+                while (end < target.length && baseEnd < base.length && base[baseEnd] == target[end]) {
+                    end++;
+                    baseEnd++;
+                }
+                writeAdd(delta, target, literalStart, start - literalStart);
+                writeCopy(delta, baseStart, end - start);
+                literalStart = end;
+                position = end;
+                if (position + BLOCK_SIZE <= target.length) {
+                    hash = hash(target, position);
+                }
+            } else {
+                if (position + BLOCK_SIZE < target.length) {
+                    hash = roll(hash, target[position], target[position + BLOCK_SIZE]);
+                }
+                position++;
+            }
+        }
+        writeAdd(delta, target, literalStart, target.length - literalStart);
+        return delta.toByteArray();
+    }
+
+    public static byte[] apply(byte[] base, byte[] delta) {
+        ByteArrayInputStream input = new ByteArrayInputStream(delta);
+        byte[] target = new byte[readVarInt(input)];
+        int position = 0;
+        int operation;
+        while ((operation = input.read()) != -1) {
+            if (operation == COPY) {
+                int offset = readVarInt(input);
+                int size = readVarInt(input);
+                System.arraycopy(base, offset, target, position, size);
+                position += size;
+            } else if (operation == ADD) {
+                int size = readVarInt(input);
+                if (input.read(target, position, size) != size) {
+                    throw new IllegalArgumentException("Delta has been truncated");
+                }
+                position += size;
+            } else {
+                throw new IllegalArgumentException("Unknown delta operation: " + operation);
+            }
+        }
+        if (position != target.length) {
+            throw new IllegalArgumentException("Delta does not describe whole content");
+        }
+        return target;
+    }
+
+    private static boolean blockMatches(byte[] base, int basePosition, byte[] target, int targetPosition) {
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            if (base[basePosition + i] != target[targetPosition + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(byte[] bytes, int offset) {
+        int hash = 0;
+        for (int i = offset; i < offset + BLOCK_SIZE; i++) {
+            hash = hash * HASH_MULTIPLIER + (bytes[i] & 0xff);
+        }
+        return hash;
+    }
+
+    private static int roll(int hash, byte removed, byte added) {
+        return (hash - (removed & 0xff) * HASH_POWER) * HASH_MULTIPLIER + (added & 0xff);
+    }
+
+    private static int power(int base, int exponent) {
+        int result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= base;
+        }
+        return result;
+    }
+
+    private static void writeCopy(ByteArrayOutputStream delta, int offset, int size) {
+        delta.write(COPY);
+        writeVarInt(delta, offset);
+        writeVarInt(delta, size);
+    }
+
+    private static void writeAdd(ByteArrayOutputStream delta, byte[] bytes, int offset, int size) {
+        if (size == 0) {
+            return;
+        }
+        delta.write(ADD);
+        writeVarInt(delta, size);
+        delta.write(bytes, offset, size);
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream output, int value) {
+        while ((value & ~0x7f) != 0) {
+            output.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        output.write(value);
+    }
+
+    private static int readVarInt(ByteArrayInputStream input) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int next = input.read();
+            if (next == -1) {
+                throw new IllegalArgumentException("Delta has been truncated");
+            }
+            value |= (next & 0x7f) << shift;
+            if ((next & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed number in delta");
+    }
+
+    private static final class BlockIndex {
+        private final int[] positions;
+        private final int mask;
+
+        BlockIndex(byte[] base) {
+            int blocks = base.length / BLOCK_SIZE;
+            positions = new int[Integer.highestOneBit(Math.max(blocks, 1)) << 1];
+            mask = positions.length - 1;
+            Arrays.fill(positions, -1);
+            for (int position = 0; position + BLOCK_SIZE <= base.length; position += BLOCK_SIZE) {
+                int slot = slot(hash(base, position));
+                if (positions[slot] == -1) {
+                    positions[slot] = position;
+                }
+            }
+        }
+
+        int find(int hash) {
+            return positions[slot(hash)];
+        }
+
+        private int slot(int hash) {
+            return ((hash ^ (hash >>> 16)) * 0x45d9f3b) & mask;
+        }
+    }
+}
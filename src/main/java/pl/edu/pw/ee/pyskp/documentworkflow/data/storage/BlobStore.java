@@ -0,0 +1,30 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.data.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Storage of binary contents, which are kept outside of documents referring to them.
+ */
+public interface BlobStore {
+    /**
+     * Stores whole given stream and returns identifier of created blob.
+     */
+    String store(String name, InputStream content) throws IOException;
+
+    /**
+     * Opens blob for reading. Returned stream is not buffered in memory and has to be closed by caller.
+     */
+    InputStream open(String blobId) throws IOException;
+
+    void delete(String blobId);
+
+    /**
+     * Returns path of file with blob content, if the blob is kept in local file system.
+     */
+    default Optional<Path> getLocalPath(String blobId) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,41 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.data.storage;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 check sums of stored contents. Digests are not thread-safe, so a new one is created for each content.
+ */
+public final class CheckSums {
+    private static final String ALGORITHM = "SHA-256";
+
+    /**
+     * Format of check sums returned by {@link #toCheckSum(byte[])}.
+     */
+    public static final String PATTERN = "[0-9a-f]{64}|-[0-9a-f]{63,64}";
+
+    private CheckSums() {
+    }
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(ALGORITHM + " is not supported", e);
+        }
+    }
+
+    /**
+     * Formats digest as signed hexadecimal number, so digests with the highest bit set give minus sign followed by
+     * 63 digits (or 64 for the single digest equal to minimum). The format is kept for compatibility, as check sums
+     * of all stored contents, references to them and ids of blobs have been saved in it.
+     */
+    public static String toCheckSum(byte[] digest) {
+        return String.format("%064x", new BigInteger(digest));
+    }
+
+    public static String calculate(byte[] content) {
+        return toCheckSum(newDigest().digest(content));
+    }
+}
@@ -0,0 +1,33 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.data.storage;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Archive of rarely read blobs. All blobs are compressed before they are written to underlying store.
+ */
+@RequiredArgsConstructor
+public class ColdBlobStore implements BlobStore {
+    private static final CompressionCodec CODEC = CompressionCodec.DEFLATE;
+
+    @NonNull
+    private final BlobStore archive;
+
+    @Override
+    public String store(String name, InputStream content) throws IOException {
+        return archive.store(name, CODEC.compress(content));
+    }
+
+    @Override
+    public InputStream open(String blobId) throws IOException {
+        return CODEC.decompress(archive.open(blobId));
+    }
+
+    @Override
+    public void delete(String blobId) {
+        archive.delete(blobId);
+    }
+}
@@ -0,0 +1,76 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.data.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterInputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compression of stored data. Codec is saved next to compressed data, so it stays readable after
+ * changing configuration.
+ */
+public enum CompressionCodec {
+    NONE {
+        @Override
+        public InputStream compress(InputStream content) {
+            return content;
+        }
+
+        @Override
+        public InputStream decompress(InputStream compressed) {
+            return compressed;
+        }
+
+        @Override
+        public OutputStream compressTo(OutputStream compressed) {
+            return compressed;
+        }
+    },
+    DEFLATE {
+        @Override
+        public InputStream compress(InputStream content) {
+            return new DeflaterInputStream(content);
+        }
+
+        @Override
+        public InputStream decompress(InputStream compressed) {
+            return new InflaterInputStream(compressed);
+        }
+
+        @Override
+        public OutputStream compressTo(OutputStream compressed) {
+            return new DeflaterOutputStream(compressed);
+        }
+    };
+
+    /**
+     * Returns stream of compressed bytes read from given content.
+     */
+    public abstract InputStream compress(InputStream content);
+
+    public abstract InputStream decompress(InputStream compressed);
+
+    /**
+     * Returns stream compressing written bytes to given stream. Closing it finishes compression.
+     */
+    public abstract OutputStream compressTo(OutputStream compressed);
+
+    public byte[] compress(byte[] content) throws IOException {
+        try (InputStream compressed = compress(new ByteArrayInputStream(content))) {
+            return compressed.readAllBytes();
+        }
+    }
+
+    public byte[] decompress(byte[] compressed) throws IOException {
+        try (InputStream content = decompress(new ByteArrayInputStream(compressed))) {
+            return content.readAllBytes();
+        }
+    }
+
+    public static CompressionCodec orNone(CompressionCodec codec) {
+        return codec != null ? codec : NONE;
+    }
+}
@@ -0,0 +1,151 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.data.storage;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps blobs as files under root directory, sharded into two levels of directories by prefix of check sum of
+ * stored bytes. Blobs are written to temporary file first and atomically moved to their place, so readers never
+ * see partially written blob.
+ * <p>
+ * Equal blobs are not merged here, as contents are already deduplicated by their references, so every blob id
+ * gets unique suffix.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class FileSystemBlobStore implements BlobStore {
+    private static final String TEMP_DIRECTORY = "tmp";
+    private static final int SHARD_LENGTH = 2;
+    private static final Pattern BLOB_ID = Pattern.compile("(?:" + CheckSums.PATTERN + ")_[0-9a-f]{32}");
+
+    @NonNull
+    private final Path root;
+
+    /**
+     * Blobs not larger than this are read through memory mapping, larger ones through file channel.
+     */
+    private final long maxMappedSize;
+
+    @Override
+    public String store(String name, InputStream content) throws IOException {
+        Path tempDirectory = Files.createDirectories(root.resolve(TEMP_DIRECTORY));
+        Path tempFile = Files.createTempFile(tempDirectory, "blob", ".tmp");
+        try {
+            MessageDigest digest = CheckSums.newDigest();
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE);
+                 OutputStream output = new DigestOutputStream(Channels.newOutputStream(channel), digest)) {
+                content.transferTo(output);
+                output.flush();
+                channel.force(true);
+            }
+            String blobId = CheckSums.toCheckSum(digest.digest()) + "_"
+                    + UUID.randomUUID().toString().replace("-", "");
+            Path target = resolve(blobId);
+            Files.createDirectories(target.getParent());
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+            return blobId;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    @Override
+    public InputStream open(String blobId) throws IOException {
+        Path path = resolve(blobId);
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException(blobId);
+        }
+        if (channel.size() > maxMappedSize) {
+            return Channels.newInputStream(channel);
+        }
+        try (FileChannel mappedChannel = channel) {
+            return new MappedInputStream(mappedChannel.map(FileChannel.MapMode.READ_ONLY, 0, mappedChannel.size()));
+        }
+    }
+
+    @Override
+    public void delete(String blobId) {
+        try {
+            if (!Files.deleteIfExists(resolve(blobId))) {
+                log.warn("Blob {} has been already deleted", blobId);
+            }
+        } catch (IOException e) {
+            log.error("Could not delete blob " + blobId, e);
+        }
+    }
+
+    @Override
+    public Optional<Path> getLocalPath(String blobId) {
+        Path path = resolve(blobId);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    private Path resolve(String blobId) {
+        if (!BLOB_ID.matcher(blobId).matches()) {
+            throw new IllegalArgumentException("Invalid blob id: " + blobId);
+        }
+        // shards are named by digits of check sum, without its sign
+        String checkSum = blobId.startsWith("-") ? blobId.substring(1) : blobId;
+        return root.resolve(checkSum.substring(0, SHARD_LENGTH))
+                .resolve(checkSum.substring(SHARD_LENGTH, 2 * SHARD_LENGTH))
+                .resolve(blobId);
+    }
+
+    private static class MappedInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        MappedInputStream(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(len, buffer.remaining());
+            buffer.get(b, off, read);
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.data.storage;
+
+import com.mongodb.MongoGridFSException;
+import com.mongodb.client.gridfs.GridFSBucket;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+
+@Slf4j
+@RequiredArgsConstructor
+public class GridFsBlobStore implements BlobStore {
+    @NonNull
+    private final GridFSBucket bucket;
+
+    @Override
+    public String store(String name, InputStream content) {
+        return bucket.uploadFromStream(name, content).toHexString();
+    }
+
+    @Override
+    public InputStream open(String blobId) throws FileNotFoundException {
+        try {
+            return bucket.openDownloadStream(new ObjectId(blobId));
+        } catch (MongoGridFSException e) {
+            log.error("Could not open blob " + blobId, e);
+            throw new FileNotFoundException(blobId);
+        }
+    }
+
+    @Override
+    public void delete(String blobId) {
+        try {
+            bucket.delete(new ObjectId(blobId));
+        } catch (MongoGridFSException e) {
+            log.warn("Blob {} has been already deleted", blobId);
+        }
+    }
+}
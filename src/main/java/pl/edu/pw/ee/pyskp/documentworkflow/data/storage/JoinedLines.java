@@ -0,0 +1,41 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.data.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Binary form of text lines joined with new line characters and encoded in UTF-8.
+ */
+public final class JoinedLines {
+    private static final String LINE_SEPARATOR = "\n";
+
+    private JoinedLines() {
+    }
+
+    public static byte[] join(List<String> lines) {
+        return String.join(LINE_SEPARATOR, lines).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Splits lines joined by {@link #join(List)}. Single empty line is joined into no bytes, the same as no lines,
+     * so their number tells them apart.
+     */
+    public static List<String> split(byte[] joinedLines, int lineCount) {
+        if (joinedLines.length == 0 && lineCount == 1) {
+            return Collections.singletonList("");
+        }
+        return split(joinedLines);
+    }
+
+    /**
+     * Splits lines, which number has not been saved with them, reading single empty line as no lines.
+     */
+    public static List<String> split(byte[] joinedLines) {
+        if (joinedLines.length == 0) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(new String(joinedLines, StandardCharsets.UTF_8).split(LINE_SEPARATOR, -1));
+    }
+}
@@ -0,0 +1,11 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.dtos.file;
+
+import lombok.Value;
+
+/**
+ * Result of import of single archive entry. Either id of created file or code of error is set.
+ */
+@Value
+public class ImportedFileDTO {
+    String entryName, fileId, error;
+}
@@ -4,6 +4,7 @@ import lombok.NonNull;
 import lombok.ToString;
 import lombok.Value;
 import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Difference;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ParseStatus;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.file.FileContentDTO;
 
 import java.util.List;
@@ -22,4 +23,17 @@ public class DiffData {
     FileContentDTO newContent;
 
     FileContentDTO oldContent;
+
+    /**
+     * Differences and contents are empty unless version is {@link ParseStatus#READY}.
+     */
+    @NonNull
+    @ToString.Include
+    ParseStatus parseStatus;
+
+    /**
+     * Differences have been approximated, as exact ones could not be computed within budget.
+     */
+    @ToString.Include
+    boolean approximateDifferences;
 }
@@ -0,0 +1,29 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.dtos.version;
+
+import lombok.NonNull;
+import lombok.ToString;
+import lombok.Value;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Difference;
+
+import java.util.List;
+
+/**
+ * Lines of both versions covered by differences, with context lines around them.
+ */
+@Value
+public class DiffHunkDTO {
+    int oldStart;
+
+    @NonNull
+    @ToString.Exclude
+    List<String> oldLines;
+
+    int newStart;
+
+    @NonNull
+    @ToString.Exclude
+    List<String> newLines;
+
+    @NonNull
+    List<Difference> differences;
+}
@@ -0,0 +1,37 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.dtos.version;
+
+import lombok.NonNull;
+import lombok.Value;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ParseStatus;
+
+import java.util.List;
+
+/**
+ * Page of hunks of differences. Lines outside of hunks can be read separately from each version.
+ */
+@Value
+public class DiffHunksDTO {
+    @NonNull
+    List<DiffHunkDTO> hunks;
+
+    /**
+     * Cursor of the next page, {@code null} if this is the last one.
+     */
+    Integer nextCursor;
+
+    /**
+     * Numbers of lines of versions, {@code null} if unknown.
+     */
+    Integer oldLineCount, newLineCount;
+
+    /**
+     * Hunks are empty unless both versions are {@link ParseStatus#READY}.
+     */
+    @NonNull
+    ParseStatus parseStatus;
+
+    /**
+     * Hunks are grouped from approximate differences, as exact ones could not be computed within budget.
+     */
+    boolean approximateDifferences;
+}
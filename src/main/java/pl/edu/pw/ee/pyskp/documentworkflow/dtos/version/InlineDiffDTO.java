@@ -0,0 +1,24 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.dtos.version;
+
+import lombok.NonNull;
+import lombok.Value;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ParseStatus;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.LineChange;
+
+import java.util.List;
+
+/**
+ * Changes within modified lines of single hunk. Lines are numbered within whole versions, text ranges are offsets
+ * of characters in those lines.
+ */
+@Value
+public class InlineDiffDTO {
+    @NonNull
+    List<LineChange> lineChanges;
+
+    /**
+     * Changes are empty unless both versions are {@link ParseStatus#READY}.
+     */
+    @NonNull
+    ParseStatus parseStatus;
+}
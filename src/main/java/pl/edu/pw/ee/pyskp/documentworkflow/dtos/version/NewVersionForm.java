@@ -5,7 +5,6 @@ import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.bson.types.ObjectId;
 import org.springframework.web.multipart.MultipartFile;
-import pl.edu.pw.ee.pyskp.documentworkflow.validators.CorrectContentType;
 import pl.edu.pw.ee.pyskp.documentworkflow.validators.UniqueVersionString;
 
 import javax.validation.constraints.NotNull;
@@ -16,7 +15,6 @@ import javax.validation.constraints.NotNull;
 @Data
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @UniqueVersionString
-@CorrectContentType
 public class NewVersionForm {
     @NotNull
     @EqualsAndHashCode.Include
@@ -3,6 +3,7 @@ package pl.edu.pw.ee.pyskp.documentworkflow.dtos.version;
 import lombok.NonNull;
 import lombok.ToString;
 import lombok.Value;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ParseStatus;
 import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Version;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.user.UserInfoDTO;
 
@@ -30,6 +31,14 @@ public class VersionInfoDTO {
     @ToString.Exclude
     List<DifferenceInfoDTO> differences;
 
+    /**
+     * Differences are approximate, until exact ones are computed in background.
+     */
+    boolean approximateDifferences;
+
+    @NonNull
+    ParseStatus parseStatus;
+
     public static VersionInfoDTO fromVersion(Version version) {
         return fromVersion(version, null);
     }
@@ -43,7 +52,9 @@ public class VersionInfoDTO {
                 previousVersionString,
                 version.getDifferences().stream()
                         .map(DifferenceInfoDTO::fromDifference)
-                        .collect(Collectors.toList())
+                        .collect(Collectors.toList()),
+                version.isApproximateDifferences(),
+                ParseStatus.orReady(version.getParseStatus())
         );
     }
 }
@@ -0,0 +1,31 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.endpoints;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.scrub.IntegrityScrubber;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.scrub.ScrubReport;
+
+import java.util.Collections;
+import java.util.Map;
+
+@RequiredArgsConstructor
+@Component
+@Endpoint(id = "scrubber")
+public class IntegrityScrubberEndpoint {
+    @NonNull
+    private final IntegrityScrubber integrityScrubber;
+
+    @ReadOperation
+    public ScrubReport report() {
+        return integrityScrubber.getReport();
+    }
+
+    @WriteOperation
+    public Map<String, Boolean> start() {
+        return Collections.singletonMap("started", integrityScrubber.start());
+    }
+}
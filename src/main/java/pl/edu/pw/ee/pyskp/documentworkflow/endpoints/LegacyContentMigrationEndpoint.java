@@ -0,0 +1,27 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.endpoints;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.VersionService;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Moves contents of versions saved inline in version documents to configured blob store.
+ */
+@RequiredArgsConstructor
+@Component
+@Endpoint(id = "legacycontents")
+public class LegacyContentMigrationEndpoint {
+    @NonNull
+    private final VersionService versionService;
+
+    @WriteOperation
+    public Map<String, Long> migrate() {
+        return Collections.singletonMap("migrated", versionService.moveLegacyContentsToStorage());
+    }
+}
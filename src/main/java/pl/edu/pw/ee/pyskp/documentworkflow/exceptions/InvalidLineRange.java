@@ -0,0 +1,7 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.exceptions;
+
+public class InvalidLineRange extends Exception {
+    public InvalidLineRange(int from, int to) {
+        super(String.format("Invalid range of lines: [%d, %d)", from, to));
+    }
+}
@@ -0,0 +1,7 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.exceptions;
+
+public class UnexpectedContentType extends Exception {
+    public UnexpectedContentType(String expected, String found) {
+        super(String.format("Expected content type %s, but found: %s", expected, found));
+    }
+}
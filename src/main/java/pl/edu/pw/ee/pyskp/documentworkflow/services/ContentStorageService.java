@@ -0,0 +1,52 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services;
+
+import org.springframework.core.io.Resource;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ContentType;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Content-addressed storage of version binaries with reference counting.
+ */
+public interface ContentStorageService {
+    /**
+     * Reads whole stream once and adds reference to content with its check sum. Content is kept only if it has
+     * not been stored yet.
+     *
+     * @param baseCheckSum check sum of previous content of the same file, against which delta may be stored,
+     *                     or {@code null}
+     * @param contentType  type of content, which decides about its compression, or {@code null} if unknown
+     * @return check sum of stored content
+     */
+    String store(InputStream content, String baseCheckSum, ContentType contentType) throws IOException;
+
+    /**
+     * Opens stored content. Content kept in cold tier is promoted to hot tier first.
+     */
+    InputStream open(String checkSum) throws IOException;
+
+    /**
+     * Opens stored content without changing its tier, e.g. for maintenance tasks.
+     */
+    InputStream openInCurrentTier(String checkSum) throws IOException;
+
+    /**
+     * Returns stored content as resource, which knows its length and can be opened many times. Content kept in
+     * cold tier is promoted to hot tier first.
+     */
+    Resource getResource(String checkSum) throws FileNotFoundException;
+
+    /**
+     * Removes reference to content with given check sum. Content is deleted when it is no longer referenced.
+     */
+    void release(String checkSum);
+
+    /**
+     * Moves content to cold tier.
+     *
+     * @return {@code false} if content does not exist or has been already moved
+     */
+    boolean moveToColdTier(String checkSum) throws IOException;
+}
@@ -1,14 +1,30 @@
 package pl.edu.pw.ee.pyskp.documentworkflow.services;
 
 import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Difference;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.DiffResult;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Created by piotr on 06.01.17.
  */
 public interface DifferenceService {
-    List<Difference> createDifferencesForNewFile(List<String> lines);
+    /**
+     * Returns differences of new file with given number of lines, so its lines do not have to be kept.
+     */
+    List<Difference> createDifferencesForNewFile(int lineCount);
 
     List<Difference> getDifferencesBetweenTwoFiles(List<String> previousVersionLines, List<String> currentVersionLines);
+
+    /**
+     * Returns exact differences, if they can be computed within configured budget, or approximate ones otherwise.
+     */
+    DiffResult getDifferencesWithinBudget(List<String> previousVersionLines, List<String> currentVersionLines);
+
+    /**
+     * Returns exact differences in place of approximate ones, or empty if they could not be computed within time
+     * configured for refinement.
+     */
+    Optional<List<Difference>> refineDifferences(List<String> previousVersionLines, List<String> currentVersionLines);
 }
@@ -3,19 +3,29 @@ package pl.edu.pw.ee.pyskp.documentworkflow.services;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.FileMetadata;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ParsedContentChunk;
 import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Task;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Version;
 import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.FileMetadataRepository;
 import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.TaskRepository;
-import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.VersionRepository;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.search.SearchResultEntry;
 
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
 @RequiredArgsConstructor
 @Service
 public class FileSearchService {
@@ -26,7 +36,7 @@ public class FileSearchService {
     private final FileMetadataRepository fileMetadataRepository;
 
     @NonNull
-    private final VersionRepository versionRepository;
+    private final MongoOperations mongoOperations;
 
     @NonNull
     private final SecurityService securityService;
@@ -49,10 +59,38 @@ public class FileSearchService {
         return doSearch(searchPhrase, files);
     }
 
+    /**
+     * Finds versions, whose messages or parsed contents match phrase. Parsed content of newer versions is
+     * searched in chunks, so every version is scored by its best matching chunk.
+     */
     private List<SearchResultEntry> doSearch(String searchPhrase, List<FileMetadata> files) {
         TextCriteria criteria = TextCriteria.forDefaultLanguage().matchingPhrase(searchPhrase);
+        Map<ObjectId, Float> versionScores = new HashMap<>();
+
+        Query versionQuery = TextQuery.queryText(criteria)
+                .sortByScore()
+                .addCriteria(where("file").in(files));
+        versionQuery.fields().include("id");
+        mongoOperations.find(versionQuery, Version.class)
+                .forEach(version -> versionScores.merge(version.getId(), version.getScore(), Math::max));
+
+        List<ObjectId> fileIds = files.stream().map(FileMetadata::getId).collect(Collectors.toList());
+        Query chunkQuery = TextQuery.queryText(criteria)
+                .sortByScore()
+                .addCriteria(where("fileId").in(fileIds));
+        chunkQuery.fields().include("versionId");
+        mongoOperations.find(chunkQuery, ParsedContentChunk.class)
+                .forEach(chunk -> versionScores.merge(chunk.getVersionId(), chunk.getScore(), Math::max));
+
+        Query matchingVersions = query(where("id").in(versionScores.keySet()));
+        matchingVersions.fields()
+                .exclude("fileContent")
+                .exclude("parsedFileContent")
+                .exclude("compressedParsedFileContent")
+                .exclude("differences");
 
-        return versionRepository.findByFileInOrderByScoreDesc(files, criteria)
+        return mongoOperations.find(matchingVersions, Version.class).stream()
+                .sorted(Comparator.comparing((Version version) -> versionScores.get(version.getId())).reversed())
                 .map(version -> {
                     FileMetadata fileMetadata = version.getFile();
                     Task task = fileMetadata.getTask();
@@ -1,9 +1,12 @@
 package pl.edu.pw.ee.pyskp.documentworkflow.services;
 
 import org.bson.types.ObjectId;
+import org.hibernate.validator.constraints.Length;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.multipart.MultipartFile;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.file.ContentTypeDTO;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.file.FileMetadataDTO;
+import pl.edu.pw.ee.pyskp.documentworkflow.dtos.file.ImportedFileDTO;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.file.NewFileForm;
 import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.FileNotFoundException;
 import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.ResourceNotFoundException;
@@ -11,6 +14,8 @@ import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.UnknownContentType;
 import pl.edu.pw.ee.pyskp.documentworkflow.services.events.VersionCreatedEvent;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
+import java.util.List;
 
 /**
  * Created by p.pysk on 04.01.2017.
@@ -20,12 +25,19 @@ public interface FilesMetadataService {
     ObjectId createNewFileFromForm(@Valid NewFileForm formData, ObjectId projectId, ObjectId taskId)
             throws UnknownContentType, ResourceNotFoundException;
 
+    /**
+     * Creates file with initial version for each file in ZIP archive. Entries, which cannot be imported, are
+     * reported and skipped.
+     */
+    List<ImportedFileDTO> importFilesFromArchive(MultipartFile archive,
+                                                 @NotBlank @Length(max = 20) String versionString,
+                                                 ObjectId projectId, ObjectId taskId)
+            throws ResourceNotFoundException;
+
     FileMetadataDTO getFileMetadataDTO(ObjectId fileId) throws FileNotFoundException;
 
     void markFileToConfirm(ObjectId fileId) throws FileNotFoundException;
 
-    boolean hasContentTypeAs(ObjectId fileId, byte[] file) throws FileNotFoundException;
-
     void confirmFile(ObjectId fileId) throws FileNotFoundException;
 
     void deleteFile(ObjectId fileId) throws FileNotFoundException;
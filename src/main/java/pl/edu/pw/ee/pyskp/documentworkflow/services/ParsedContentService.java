@@ -0,0 +1,47 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services;
+
+import org.bson.types.ObjectId;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ContentType;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Version;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps text lines parsed from version contents in chunks, compressed or moved to cold tier if configured.
+ */
+public interface ParsedContentService {
+    /**
+     * Stores parsed content of saved version.
+     */
+    void saveParsedFileContent(Version version, List<String> lines, ContentType contentType);
+
+    /**
+     * Returns writer storing parsed content of saved version incrementally, as lines are extracted.
+     */
+    ParsedContentWriter openParsedContentWriter(Version version, ContentType contentType);
+
+    /**
+     * Returns parsed content of version. Content kept in cold tier is promoted to hot tier first.
+     */
+    List<String> getParsedFileContent(Version version);
+
+    /**
+     * Returns lines [from, to) of parsed content of version, reading only chunks containing them. Range is
+     * truncated to number of lines of content.
+     */
+    List<String> getParsedFileContentLines(Version version, int from, int to);
+
+    /**
+     * Moves parsed content of saved version to cold tier.
+     *
+     * @return {@code false} if content has been already moved
+     */
+    boolean moveToColdTier(Version version) throws IOException;
+
+    /**
+     * Deletes parsed contents of all versions of given files. Versions themselves are not modified.
+     */
+    void deleteParsedContentsOfFiles(Collection<ObjectId> fileIds);
+}
@@ -0,0 +1,15 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services;
+
+import java.util.function.Consumer;
+
+/**
+ * Stores parsed content of version line by line. Only lines of the chunk being filled are kept in memory.
+ */
+public interface ParsedContentWriter extends Consumer<String> {
+    /**
+     * Stores remaining lines and number of lines of version.
+     *
+     * @return number of written lines
+     */
+    int finish();
+}
@@ -27,6 +27,9 @@ public interface ProjectService {
     @SuppressWarnings("unused")
     void processFileCreatedEvent(FileCreatedEvent event);
 
+    @SuppressWarnings("unused")
+    void processFilesImportedEvent(FilesImportedEvent event);
+
     @SuppressWarnings("unused")
     void processFileDeletedEvent(FileDeletedEvent event);
 
@@ -8,6 +8,7 @@ import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.ResourceNotFoundException;
 import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.TaskNotFoundException;
 import pl.edu.pw.ee.pyskp.documentworkflow.services.events.FileCreatedEvent;
 import pl.edu.pw.ee.pyskp.documentworkflow.services.events.FileDeletedEvent;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.events.FilesImportedEvent;
 import pl.edu.pw.ee.pyskp.documentworkflow.services.events.VersionCreatedEvent;
 
 import java.util.List;
@@ -34,6 +35,9 @@ public interface TaskService {
     @SuppressWarnings("unused")
     void processFileCreatedEvent(FileCreatedEvent event);
 
+    @SuppressWarnings("unused")
+    void processFilesImportedEvent(FilesImportedEvent event);
+
     @SuppressWarnings("unused")
     void processFileDeletedEvent(FileDeletedEvent event);
 
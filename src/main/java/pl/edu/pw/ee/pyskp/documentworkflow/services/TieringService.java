@@ -0,0 +1,12 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services;
+
+/**
+ * Moves data, which is rarely read, from hot to cold tier. Data is promoted back to hot tier when it is read.
+ */
+public interface TieringService {
+    /**
+     * Moves to cold tier parsed contents of versions, which are not among latest versions of their files and
+     * have not been saved or promoted recently, and contents, which are referenced only by such versions.
+     */
+    void demoteInactiveData();
+}
@@ -3,14 +3,18 @@ package pl.edu.pw.ee.pyskp.documentworkflow.services;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.apache.tika.Tika;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
 import org.springframework.stereotype.Service;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Created by piotr on 20.01.17.
@@ -22,19 +26,71 @@ public class TikaService {
     private final Tika tika;
 
     public List<String> extractLines(InputStream inputStream) throws IOException {
+        return extractLines(inputStream, new Metadata());
+    }
+
+    /**
+     * Extracts lines and fills given metadata with the ones found during parsing, including detected media type.
+     */
+    public List<String> extractLines(InputStream inputStream, Metadata metadata) throws IOException {
         List<String> lines = new ArrayList<>();
+        extractLines(inputStream, metadata, lines::add);
+        return lines;
+    }
 
-        Reader parsingReader = tika.parse(inputStream);
-        try (BufferedReader contentReader = new BufferedReader(parsingReader)) {
+    /**
+     * Passes extracted lines to consumer one by one, as soon as they are parsed, without keeping them.
+     *
+     * @return number of extracted lines
+     */
+    public int extractLines(InputStream inputStream, Metadata metadata, Consumer<String> lineConsumer)
+            throws IOException {
+        int lineCount = 0;
+        try (BufferedReader contentReader = new BufferedReader(tika.parse(inputStream, metadata))) {
             String line;
             while ((line = contentReader.readLine()) != null) {
-                lines.add(line);
+                lineConsumer.accept(line);
+                lineCount++;
             }
         }
-        return lines;
+        return lineCount;
+    }
+
+    /**
+     * Returns lazily extracted lines. Stream has to be closed, which also closes given input stream. Errors of
+     * parsing are thrown as {@link java.io.UncheckedIOException}.
+     */
+    public Stream<String> streamLines(InputStream inputStream) {
+        BufferedReader contentReader = new BufferedReader(tika.parse(inputStream, new Metadata()));
+        return contentReader.lines().onClose(() -> {
+            try {
+                contentReader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
     public String detectMediaType(byte[] bytes) {
         return tika.detect(bytes);
     }
+
+    /**
+     * Detects base media type of content. Containers like OOXML or ODF documents may be read completely.
+     */
+    public String detectMediaType(InputStream inputStream) throws IOException {
+        return toBaseType(tika.detect(inputStream));
+    }
+
+    public String getDetectedMediaType(Metadata metadata) {
+        return toBaseType(metadata.get(Metadata.CONTENT_TYPE));
+    }
+
+    private static String toBaseType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        MediaType mediaType = MediaType.parse(contentType);
+        return mediaType != null ? mediaType.getBaseType().toString() : contentType;
+    }
 }
@@ -0,0 +1,19 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services;
+
+import lombok.NonNull;
+import lombok.Value;
+import org.springframework.core.io.Resource;
+
+import java.util.Date;
+
+@Value
+public class VersionContent {
+    @NonNull
+    String checkSum;
+
+    @NonNull
+    Date saveDate;
+
+    @NonNull
+    Resource content;
+}
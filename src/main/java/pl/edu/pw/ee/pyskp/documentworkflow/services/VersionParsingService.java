@@ -0,0 +1,13 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services;
+
+import org.bson.types.ObjectId;
+
+/**
+ * Extracts text from contents of saved versions and computes their differences outside of requests.
+ */
+public interface VersionParsingService {
+    /**
+     * Queues pending version for parsing. Versions, which cannot be queued now, are queued again later.
+     */
+    void schedule(ObjectId versionId);
+}
@@ -6,29 +6,93 @@ import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.FileMetadata;
 import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Version;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.file.NewFileForm;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.version.DiffData;
+import pl.edu.pw.ee.pyskp.documentworkflow.dtos.version.DiffHunksDTO;
+import pl.edu.pw.ee.pyskp.documentworkflow.dtos.version.InlineDiffDTO;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.version.NewVersionForm;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.version.VersionInfoDTO;
 import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.ResourceNotFoundException;
+import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.UnexpectedContentType;
 import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.VersionNotFoundException;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.IntraLineGranularity;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.upload.UploadedContent;
 
 import javax.validation.Valid;
-import java.io.InputStream;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Created by piotr on 06.01.17.
  */
 @Validated
 public interface VersionService {
-    Version createInitVersionOfFile(NewFileForm form, FileMetadata fileMetadata);
+    Version createInitVersionOfFile(NewFileForm form, FileMetadata fileMetadata, UploadedContent content);
 
-    InputStream getVersionFileContent(ObjectId fileId, Date saveDate) throws VersionNotFoundException;
+    /**
+     * Creates initial versions of imported files with their ids assigned, without saving them, so files can refer to
+     * them before any of them is saved. Files have to have their ids assigned.
+     *
+     * @return created versions, in order of given files
+     */
+    List<Version> createInitVersionsOfFiles(Map<FileMetadata, UploadedContent> contentsOfFiles, String versionString);
 
-    long addNewVersionOfFile(@Valid NewVersionForm form) throws ResourceNotFoundException;
+    /**
+     * Saves versions created by {@link #createInitVersionsOfFiles(Map, String)} with one write and schedules their
+     * parsing. Their files have to be saved first.
+     */
+    void insertInitVersions(List<Version> versions);
+
+    VersionContent getVersionContent(ObjectId fileId, Date saveDate) throws VersionNotFoundException;
+
+    long addNewVersionOfFile(@Valid NewVersionForm form) throws ResourceNotFoundException, UnexpectedContentType;
 
     DiffData buildDiffData(ObjectId fileId, long versionSaveDateMillis) throws VersionNotFoundException;
 
+    /**
+     * Returns differences between any two versions of file, with base version treated as the previous one.
+     */
+    DiffData buildDiffData(ObjectId fileId, long baseVersionSaveDateMillis, long versionSaveDateMillis)
+            throws VersionNotFoundException;
+
+    /**
+     * Returns page of hunks of differences between version and base version, or previous version if base is not
+     * given. Context and page size are limited by configuration.
+     *
+     * @param cursor index of the first hunk of page
+     */
+    DiffHunksDTO getDiffHunks(ObjectId fileId, long versionSaveDateMillis, Long baseVersionSaveDateMillis,
+                              @Min(0) int context, @Min(0) int cursor, @Min(1) int pageSize)
+            throws VersionNotFoundException;
+
+    /**
+     * Returns changes within modified lines of hunk, grouped the same way as by
+     * {@link #getDiffHunks(ObjectId, long, Long, int, int, int)}. Changes are computed on first request and cached.
+     *
+     * @param hunkIndex index of hunk, changes are empty if there is no such hunk
+     */
+    InlineDiffDTO getInlineDiff(ObjectId fileId, long versionSaveDateMillis, Long baseVersionSaveDateMillis,
+                                @Min(0) int context, @Min(0) int hunkIndex, @NotNull IntraLineGranularity granularity)
+            throws VersionNotFoundException;
+
+    /**
+     * Returns lines [from, to) of text parsed from content of version, truncated to number of its lines.
+     */
+    List<String> getParsedFileContentLines(ObjectId fileId, long versionSaveDateMillis,
+                                           @Min(0) int from, @Min(0) int to) throws VersionNotFoundException;
+
     VersionInfoDTO getVersionInfo(ObjectId fileId, long versionSaveDateMillis) throws VersionNotFoundException;
 
     boolean existsByVersionString(ObjectId fileId, String versionString);
+
+    void deleteVersionsOfFiles(Collection<FileMetadata> files);
+
+    /**
+     * Moves contents kept inline in versions saved before introducing content storage to the storage.
+     *
+     * @return number of moved contents
+     */
+    long moveLegacyContentsToStorage();
 }
@@ -0,0 +1,121 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Approximate diff of interned lines in O(n log n) time. Lines occurring exactly once in both versions are matched,
+ * if their order is the same in both of them, and serve as anchors. Lines between consecutive anchors are matched
+ * only as common prefix and suffix, the rest of them is replaced as a whole. Anchors also split versions into
+ * segments compared in parallel.
+ */
+class AnchorDiff {
+    private final int[] previous;
+    private final int[] current;
+
+    /**
+     * Position in previous version of each line occurring there, the last one for repeated lines.
+     */
+    private final int[] previousPositions;
+
+    private final List<Edit> edits = new ArrayList<>();
+
+    AnchorDiff(InternedLines lines) {
+        previous = lines.getPrevious();
+        current = lines.getCurrent();
+        previousPositions = new int[lines.getIdCount()];
+    }
+
+    List<Edit> diff() {
+        int previousEnd = 0;
+        int currentEnd = 0;
+        for (int c : findAnchors()) {
+            int p = getPreviousPosition(c);
+            diffGap(previousEnd, p, currentEnd, c);
+            previousEnd = p + 1;
+            currentEnd = c + 1;
+        }
+        diffGap(previousEnd, previous.length, currentEnd, current.length);
+        return edits;
+    }
+
+    /**
+     * Finds the longest sequence of lines occurring exactly once in both versions, which are ordered the same way in
+     * both of them, by patience sorting.
+     *
+     * @return positions of anchors in current version, ascending
+     */
+    int[] findAnchors() {
+        int[] previousCounts = new int[previousPositions.length];
+        int[] currentCounts = new int[previousPositions.length];
+        for (int i = 0; i < previous.length; i++) {
+            previousCounts[previous[i]]++;
+            previousPositions[previous[i]] = i;
+        }
+        for (int id : current) {
+            currentCounts[id]++;
+        }
+        int[] candidates = new int[Math.min(previous.length, current.length)];
+        int candidateCount = 0;
+        for (int c = 0; c < current.length; c++) {
+            int id = current[c];
+            if (previousCounts[id] == 1 && currentCounts[id] == 1) {
+                candidates[candidateCount++] = c;
+            }
+        }
+
+        int[] pileTops = new int[candidateCount];
+        int[] predecessors = new int[candidateCount];
+        int piles = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            int p = previousPositions[current[candidates[i]]];
+            int low = 0;
+            int high = piles;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (previousPositions[current[candidates[pileTops[middle]]]] < p) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            predecessors[i] = low > 0 ? pileTops[low - 1] : -1;
+            pileTops[low] = i;
+            if (low == piles) {
+                piles++;
+            }
+        }
+        int[] anchors = new int[piles];
+        for (int i = piles > 0 ? pileTops[piles - 1] : -1, a = piles - 1; i != -1; i = predecessors[i], a--) {
+            anchors[a] = candidates[i];
+        }
+        return anchors;
+    }
+
+    /**
+     * Returns position in previous version of anchor found at given position in current one.
+     */
+    int getPreviousPosition(int anchor) {
+        return previousPositions[current[anchor]];
+    }
+
+    private void diffGap(int previousStart, int previousEnd, int currentStart, int currentEnd) {
+        while (previousStart < previousEnd && currentStart < currentEnd
+                && previous[previousStart] == current[currentStart]) {
+            previousStart++;
+            currentStart++;
+        }
+        while (previousStart < previousEnd && currentStart < currentEnd
+                && previous[previousEnd - 1] == current[currentEnd - 1]) {
+            previousEnd--;
+            currentEnd--;
+        }
+        if (previousStart == previousEnd && currentStart == currentEnd) {
+            return;
+        }
+        Edit edit = new Edit(previousStart, previousEnd, currentStart, currentEnd);
+        if (edits.isEmpty() || !edits.get(edits.size() - 1).merge(edit)) {
+            edits.add(edit);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Difference;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Approximate diff matching lines unique in both versions, used when exact differences exceed their budget. It takes
+ * O(n log n) time, so budget is not charged.
+ */
+public class AnchorLineDiffAlgorithm implements LineDiffAlgorithm {
+    @Override
+    public List<Difference> diff(List<String> previousLines, List<String> currentLines, DiffBudget budget) {
+        return new AnchorDiff(new InternedLines(previousLines, currentLines)).diff().stream()
+                .map(Edit::toDifference)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,72 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limit of work of single diff, counted in compared lines, and of its duration. Diff exceeding its budget is
+ * interrupted by {@link DiffBudgetExceededException}. Budget is used by one thread at a time, parts of diff computed
+ * in parallel use its forks, sharing the same limits.
+ */
+public class DiffBudget {
+    /**
+     * Number of comparisons between checks of limits, so shared counter and clock are not read for each of them.
+     */
+    private static final long CHECK_INTERVAL = 1 << 16;
+
+    private final long maxComparisons;
+    private final long deadline;
+    private final boolean timed;
+    private final AtomicLong comparisons;
+    private long uncheckedComparisons;
+
+    /**
+     * @param maxComparisons limit of compared lines, ignored if not positive
+     * @param timeout        limit of duration starting now, ignored if {@code null}
+     */
+    public DiffBudget(long maxComparisons, Duration timeout) {
+        this.maxComparisons = maxComparisons > 0 ? maxComparisons : Long.MAX_VALUE;
+        this.deadline = timeout != null ? System.nanoTime() + timeout.toNanos() : 0;
+        this.timed = timeout != null;
+        this.comparisons = new AtomicLong();
+    }
+
+    private DiffBudget(DiffBudget budget) {
+        this.maxComparisons = budget.maxComparisons;
+        this.deadline = budget.deadline;
+        this.timed = budget.timed;
+        this.comparisons = budget.comparisons;
+    }
+
+    public static DiffBudget unlimited() {
+        return new DiffBudget(0, null);
+    }
+
+    /**
+     * Returns budget sharing limits and spent comparisons with this one, to be used by another thread.
+     */
+    DiffBudget fork() {
+        return new DiffBudget(this);
+    }
+
+    void charge(long comparisons) {
+        uncheckedComparisons += comparisons;
+        if (uncheckedComparisons >= CHECK_INTERVAL) {
+            check();
+        }
+    }
+
+    /**
+     * Adds comparisons charged since last check to shared ones and checks limits.
+     */
+    private void check() {
+        long spent = comparisons.addAndGet(uncheckedComparisons);
+        uncheckedComparisons = 0;
+        if (spent > maxComparisons) {
+            throw new DiffBudgetExceededException("Diff exceeded limit of " + maxComparisons + " comparisons");
+        }
+        if (timed && System.nanoTime() - deadline > 0) {
+            throw new DiffBudgetExceededException("Diff exceeded its time limit");
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+public class DiffBudgetExceededException extends RuntimeException {
+    DiffBudgetExceededException(String message) {
+        super(message);
+    }
+}
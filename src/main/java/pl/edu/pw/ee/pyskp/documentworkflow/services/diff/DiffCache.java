@@ -0,0 +1,91 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.stereotype.Service;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.DiffConfig;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Differences computed between pairs of versions and within their modified lines. Parsed versions do not change, so
+ * entries are never invalidated, only the least recently used ones are evicted when their approximate size exceeds
+ * configured limit.
+ */
+@RequiredArgsConstructor
+@Service
+public class DiffCache {
+    private static final String METRIC = "dws.diff.cache";
+    private static final long ENTRY_SIZE = 100;
+    private static final long DIFFERENCE_SIZE = 40;
+    private static final long LINE_CHANGE_SIZE = 60;
+    private static final long TEXT_RANGE_SIZE = 24;
+
+    @NonNull
+    private final DiffConfig diffConfig;
+
+    @NonNull
+    private final MeterRegistry meterRegistry;
+
+    private final SizeBoundedCache<String, DiffResult> differences =
+            new SizeBoundedCache<>(DiffCache::estimateDifferencesSize, this::getMaxSize);
+    private final SizeBoundedCache<String, List<LineChange>> lineChanges =
+            new SizeBoundedCache<>(DiffCache::estimateLineChangesSize, this::getMaxSize);
+
+    /**
+     * Returns cached differences between versions, or computes and caches them. Approximate differences are cached
+     * as well, so diffs exceeding their budget are not repeated.
+     */
+    public DiffResult get(ObjectId baseVersionId, ObjectId versionId, Supplier<DiffResult> computation) {
+        return get(differences, "differences", baseVersionId + ":" + versionId, () -> {
+            DiffResult result = computation.get();
+            return new DiffResult(Collections.unmodifiableList(result.getDifferences()), result.isApproximate());
+        });
+    }
+
+    /**
+     * Returns cached changes within modified lines of hunk, or computes and caches them. Hunks are identified by
+     * their index and context lines used to group differences.
+     */
+    public List<LineChange> getLineChanges(ObjectId baseVersionId, ObjectId versionId, int context, int hunkIndex,
+                                           IntraLineGranularity granularity,
+                                           Supplier<List<LineChange>> computation) {
+        String key = baseVersionId + ":" + versionId + ":" + context + ":" + hunkIndex + ":" + granularity;
+        return get(lineChanges, "lines", key, () -> Collections.unmodifiableList(computation.get()));
+    }
+
+    private <V> V get(SizeBoundedCache<String, V> cache, String type, String key, Supplier<V> computation) {
+        if (!diffConfig.getCache().isEnabled()) {
+            return computation.get();
+        }
+        V value = cache.get(key);
+        meterRegistry.counter(METRIC, "type", type, "result", value != null ? "hit" : "miss").increment();
+        if (value != null) {
+            return value;
+        }
+        value = computation.get();
+        cache.put(key, value);
+        return value;
+    }
+
+    private long getMaxSize() {
+        return diffConfig.getCache().getSize().toBytes();
+    }
+
+    private static long estimateDifferencesSize(DiffResult result) {
+        return ENTRY_SIZE + DIFFERENCE_SIZE * result.getDifferences().size();
+    }
+
+    private static long estimateLineChangesSize(List<LineChange> lineChanges) {
+        long size = ENTRY_SIZE;
+        for (LineChange lineChange : lineChanges) {
+            size += LINE_CHANGE_SIZE + TEXT_RANGE_SIZE * (lineChange.getDeleted().size()
+                    + lineChange.getInserted().size());
+        }
+        return size;
+    }
+}
@@ -0,0 +1,18 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+import lombok.NonNull;
+import lombok.Value;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Difference;
+
+import java.util.List;
+
+/**
+ * Differences between versions, approximate if exact ones could not be computed within budget.
+ */
+@Value
+public class DiffResult {
+    @NonNull
+    List<Difference> differences;
+
+    boolean approximate;
+}
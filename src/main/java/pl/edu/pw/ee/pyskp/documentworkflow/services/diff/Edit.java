@@ -0,0 +1,46 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Difference;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.DifferenceType;
+
+/**
+ * Lines [previousStart, previousEnd) of previous version replaced by lines [currentStart, currentEnd) of current one.
+ */
+@Getter
+@AllArgsConstructor
+class Edit {
+    private int previousStart, previousEnd;
+    private int currentStart, currentEnd;
+
+    /**
+     * Extends this edit by the following one, if they are adjacent.
+     *
+     * @return {@code false} if edits are not adjacent
+     */
+    boolean merge(Edit next) {
+        if (next.previousStart != previousEnd || next.currentStart != currentEnd) {
+            return false;
+        }
+        previousEnd = next.previousEnd;
+        currentEnd = next.currentEnd;
+        return true;
+    }
+
+    Difference toDifference() {
+        Difference difference = new Difference();
+        difference.setPreviousSectionStart(previousStart);
+        difference.setPreviousSectionSize(previousEnd - previousStart);
+        difference.setNewSectionStart(currentStart);
+        difference.setNewSectionSize(currentEnd - currentStart);
+        if (previousStart == previousEnd) {
+            difference.setDifferenceType(DifferenceType.INSERT);
+        } else if (currentStart == currentEnd) {
+            difference.setDifferenceType(DifferenceType.DELETE);
+        } else {
+            difference.setDifferenceType(DifferenceType.MODIFICATION);
+        }
+        return difference;
+    }
+}
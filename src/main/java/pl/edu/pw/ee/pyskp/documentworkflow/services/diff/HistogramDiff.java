@@ -0,0 +1,276 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Histogram diff of interned lines. Region is split at the longest common sequence containing the least frequent
+ * lines, and both remaining parts are compared the same way. Regions, in which every common line is too frequent,
+ * are compared by Myers algorithm in linear space. Common prefix and suffix of each region are skipped first.
+ * Regions are kept on explicit stack, so long inputs do not overflow call stack. Budget is charged for lines
+ * compared while searching for common sequences and for paths of Myers algorithm.
+ */
+class HistogramDiff {
+    /**
+     * Lines occurring more often in compared region of previous version are not used to split it.
+     */
+    private static final int MAX_CHAIN_LENGTH = 64;
+
+    private final int[] previous;
+    private final int[] current;
+    private final DiffBudget budget;
+
+    private final int[] regionOf;
+    private final int[] firstOccurrence;
+    private final int[] occurrences;
+    private final int[] nextOccurrence;
+    private int region;
+
+    private final List<Edit> edits = new ArrayList<>();
+    private final Deque<int[]> regions = new ArrayDeque<>();
+
+    HistogramDiff(InternedLines lines) {
+        this(lines, DiffBudget.unlimited());
+    }
+
+    HistogramDiff(InternedLines lines, DiffBudget budget) {
+        previous = lines.getPrevious();
+        current = lines.getCurrent();
+        this.budget = budget;
+        regionOf = new int[lines.getIdCount()];
+        Arrays.fill(regionOf, -1);
+        firstOccurrence = new int[lines.getIdCount()];
+        occurrences = new int[lines.getIdCount()];
+        nextOccurrence = new int[previous.length];
+    }
+
+    List<Edit> diff() {
+        return diff(0, previous.length, 0, current.length);
+    }
+
+    /**
+     * Compares lines [previousStart, previousEnd) of previous version with lines [currentStart, currentEnd) of
+     * current one.
+     */
+    List<Edit> diff(int previousStart, int previousEnd, int currentStart, int currentEnd) {
+        regions.push(new int[]{previousStart, previousEnd, currentStart, currentEnd, 0});
+        while (!regions.isEmpty()) {
+            int[] next = regions.pop();
+            if (next[4] == 0) {
+                diffRegion(next[0], next[1], next[2], next[3]);
+            } else {
+                bisectRegion(next[0], next[1], next[2], next[3]);
+            }
+        }
+        return edits;
+    }
+
+    private void diffRegion(int previousStart, int previousEnd, int currentStart, int currentEnd) {
+        while (previousStart < previousEnd && currentStart < currentEnd
+                && previous[previousStart] == current[currentStart]) {
+            previousStart++;
+            currentStart++;
+        }
+        while (previousStart < previousEnd && currentStart < currentEnd
+                && previous[previousEnd - 1] == current[currentEnd - 1]) {
+            previousEnd--;
+            currentEnd--;
+        }
+        if (previousStart == previousEnd || currentStart == currentEnd) {
+            addEdit(previousStart, previousEnd, currentStart, currentEnd);
+            return;
+        }
+        int[] split = findLongestCommonSequence(previousStart, previousEnd, currentStart, currentEnd);
+        if (split == null) {
+            addEdit(previousStart, previousEnd, currentStart, currentEnd);
+        } else if (split.length == 0) {
+            bisectRegion(previousStart, previousEnd, currentStart, currentEnd);
+        } else {
+            regions.push(new int[]{split[1], previousEnd, split[3], currentEnd, 0});
+            regions.push(new int[]{previousStart, split[0], currentStart, split[2], 0});
+        }
+    }
+
+    /**
+     * @return bounds of sequence, empty array if all common lines are too frequent, or {@code null} if there are no
+     * common lines
+     */
+    private int[] findLongestCommonSequence(int previousStart, int previousEnd, int currentStart, int currentEnd) {
+        region++;
+        budget.charge(previousEnd - previousStart + currentEnd - currentStart);
+        for (int i = previousEnd - 1; i >= previousStart; i--) {
+            int id = previous[i];
+            if (regionOf[id] != region) {
+                regionOf[id] = region;
+                firstOccurrence[id] = -1;
+                occurrences[id] = 0;
+            }
+            nextOccurrence[i] = firstOccurrence[id];
+            firstOccurrence[id] = i;
+            occurrences[id]++;
+        }
+
+        boolean hasCommonLines = false;
+        int[] best = null;
+        int bestOccurrences = MAX_CHAIN_LENGTH + 1;
+        int c = currentStart;
+        while (c < currentEnd) {
+            int id = current[c];
+            int nextC = c + 1;
+            if (regionOf[id] == region) {
+                hasCommonLines = true;
+                if (occurrences[id] <= bestOccurrences) {
+                    for (int p = firstOccurrence[id]; p != -1; p = nextOccurrence[p]) {
+                        int minOccurrences = occurrences[id];
+                        int ps = p;
+                        int cs = c;
+                        while (ps > previousStart && cs > currentStart && previous[ps - 1] == current[cs - 1]) {
+                            ps--;
+                            cs--;
+                            minOccurrences = Math.min(minOccurrences, occurrences[previous[ps]]);
+                        }
+                        int pe = p + 1;
+                        int ce = c + 1;
+                        while (pe < previousEnd && ce < currentEnd && previous[pe] == current[ce]) {
+                            minOccurrences = Math.min(minOccurrences, occurrences[previous[pe]]);
+                            pe++;
+                            ce++;
+                        }
+                        budget.charge(ce - cs);
+                        if (best == null || best[3] - best[2] < ce - cs || minOccurrences < bestOccurrences) {
+                            best = new int[]{ps, pe, cs, ce};
+                            bestOccurrences = minOccurrences;
+                        }
+                        nextC = Math.max(nextC, ce);
+                    }
+                }
+            }
+            c = nextC;
+        }
+        if (best != null) {
+            return best;
+        }
+        return hasCommonLines ? new int[0] : null;
+    }
+
+    /**
+     * Splits region in the middle of its shortest edit script, found by Myers algorithm, or adds it as a single edit
+     * if one of its sides is empty.
+     */
+    private void bisectRegion(int previousStart, int previousEnd, int currentStart, int currentEnd) {
+        while (previousStart < previousEnd && currentStart < currentEnd
+                && previous[previousStart] == current[currentStart]) {
+            previousStart++;
+            currentStart++;
+        }
+        while (previousStart < previousEnd && currentStart < currentEnd
+                && previous[previousEnd - 1] == current[currentEnd - 1]) {
+            previousEnd--;
+            currentEnd--;
+        }
+        if (previousStart == previousEnd || currentStart == currentEnd) {
+            addEdit(previousStart, previousEnd, currentStart, currentEnd);
+            return;
+        }
+        int[] middle = findMiddle(previousStart, previousEnd, currentStart, currentEnd);
+        if (middle == null) {
+            addEdit(previousStart, previousEnd, currentStart, currentEnd);
+            return;
+        }
+        regions.push(new int[]{middle[0], previousEnd, middle[1], currentEnd, 1});
+        regions.push(new int[]{previousStart, middle[0], currentStart, middle[1], 1});
+    }
+
+    /**
+     * Runs Myers algorithm from both ends of region, until paths meet.
+     *
+     * @return position in previous and current version, where paths meet
+     */
+    private int[] findMiddle(int previousStart, int previousEnd, int currentStart, int currentEnd) {
+        int n = previousEnd - previousStart;
+        int m = currentEnd - currentStart;
+        int maxD = (n + m + 1) / 2;
+        int offset = maxD;
+        int length = 2 * maxD + 2;
+        int[] forward = new int[length];
+        int[] backward = new int[length];
+        Arrays.fill(forward, -1);
+        Arrays.fill(backward, -1);
+        forward[offset + 1] = 0;
+        backward[offset + 1] = 0;
+        int delta = n - m;
+        boolean forwardMeets = (delta & 1) != 0;
+        int forwardStart = 0;
+        int forwardEnd = 0;
+        int backwardStart = 0;
+        int backwardEnd = 0;
+        for (int d = 0; d < maxD; d++) {
+            for (int k = -d + forwardStart; k <= d - forwardEnd; k += 2) {
+                int x = k == -d || (k != d && forward[offset + k - 1] < forward[offset + k + 1])
+                        ? forward[offset + k + 1]
+                        : forward[offset + k - 1] + 1;
+                int y = x - k;
+                int snakeStart = x;
+                while (x < n && y < m && previous[previousStart + x] == current[currentStart + y]) {
+                    x++;
+                    y++;
+                }
+                budget.charge(x - snakeStart + 1);
+                forward[offset + k] = x;
+                if (x > n) {
+                    forwardEnd += 2;
+                } else if (y > m) {
+                    forwardStart += 2;
+                } else if (forwardMeets) {
+                    int backwardIndex = offset + delta - k;
+                    if (backwardIndex >= 0 && backwardIndex < length && backward[backwardIndex] != -1
+                            && x >= n - backward[backwardIndex]) {
+                        return new int[]{previousStart + x, currentStart + y};
+                    }
+                }
+            }
+            for (int k = -d + backwardStart; k <= d - backwardEnd; k += 2) {
+                int x = k == -d || (k != d && backward[offset + k - 1] < backward[offset + k + 1])
+                        ? backward[offset + k + 1]
+                        : backward[offset + k - 1] + 1;
+                int y = x - k;
+                int snakeStart = x;
+                while (x < n && y < m
+                        && previous[previousEnd - x - 1] == current[currentEnd - y - 1]) {
+                    x++;
+                    y++;
+                }
+                budget.charge(x - snakeStart + 1);
+                backward[offset + k] = x;
+                if (x > n) {
+                    backwardEnd += 2;
+                } else if (y > m) {
+                    backwardStart += 2;
+                } else if (!forwardMeets) {
+                    int forwardIndex = offset + delta - k;
+                    if (forwardIndex >= 0 && forwardIndex < length && forward[forwardIndex] != -1) {
+                        int forwardX = forward[forwardIndex];
+                        int forwardY = forwardX - (forwardIndex - offset);
+                        if (forwardX >= n - x) {
+                            return new int[]{previousStart + forwardX, currentStart + forwardY};
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private void addEdit(int previousStart, int previousEnd, int currentStart, int currentEnd) {
+        if (previousStart == previousEnd && currentStart == currentEnd) {
+            return;
+        }
+        Edit edit = new Edit(previousStart, previousEnd, currentStart, currentEnd);
+        if (edits.isEmpty() || !edits.get(edits.size() - 1).merge(edit)) {
+            edits.add(edit);
+        }
+    }
+}
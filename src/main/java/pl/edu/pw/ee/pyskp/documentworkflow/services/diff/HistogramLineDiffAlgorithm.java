@@ -0,0 +1,19 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Difference;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Histogram diff of lines replaced by int ids. Lines are hashed once, regardless of number of their comparisons,
+ * and memory used is linear in number of lines.
+ */
+public class HistogramLineDiffAlgorithm implements LineDiffAlgorithm {
+    @Override
+    public List<Difference> diff(List<String> previousLines, List<String> currentLines, DiffBudget budget) {
+        return new HistogramDiff(new InternedLines(previousLines, currentLines), budget).diff().stream()
+                .map(Edit::toDifference)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,54 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+import lombok.Getter;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Difference;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Differences close to each other, with surrounding unchanged lines. Ends of hunk may exceed number of lines of
+ * versions, if differences are at their ends.
+ */
+@Getter
+public class Hunk {
+    private final int previousStart, currentStart;
+    private int previousEnd, currentEnd;
+    private final List<Difference> differences = new ArrayList<>();
+
+    private Hunk(Difference difference, int context) {
+        previousStart = Math.max(0, difference.getPreviousSectionStart() - context);
+        currentStart = Math.max(0, difference.getNewSectionStart() - context);
+        add(difference, context);
+    }
+
+    private void add(Difference difference, int context) {
+        previousEnd = difference.getPreviousSectionStart() + difference.getPreviousSectionSize() + context;
+        currentEnd = difference.getNewSectionStart() + difference.getNewSectionSize() + context;
+        differences.add(difference);
+    }
+
+    public List<Difference> getDifferences() {
+        return Collections.unmodifiableList(differences);
+    }
+
+    /**
+     * Groups differences into hunks. Differences separated by at most twice the context lines share a hunk.
+     *
+     * @param differences differences ordered by their position
+     */
+    public static List<Hunk> group(List<Difference> differences, int context) {
+        List<Hunk> hunks = new ArrayList<>();
+        Hunk hunk = null;
+        for (Difference difference : differences) {
+            if (hunk != null && difference.getPreviousSectionStart() - context <= hunk.previousEnd) {
+                hunk.add(difference, context);
+            } else {
+                hunk = new Hunk(difference, context);
+                hunks.add(hunk);
+            }
+        }
+        return hunks;
+    }
+}
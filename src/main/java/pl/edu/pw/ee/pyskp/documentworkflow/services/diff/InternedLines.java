@@ -0,0 +1,35 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lines of two versions replaced by ids, equal for equal lines, so they are hashed only once and compared as ints.
+ * Ids are consecutive, starting from 0.
+ */
+@Getter
+class InternedLines {
+    private final int[] previous;
+    private final int[] current;
+    private final int idCount;
+
+    InternedLines(List<String> previousLines, List<String> currentLines) {
+        Map<String, Integer> ids = new HashMap<>(previousLines.size() + currentLines.size());
+        previous = intern(previousLines, ids);
+        current = intern(currentLines, ids);
+        idCount = ids.size();
+    }
+
+    private static int[] intern(List<String> lines, Map<String, Integer> ids) {
+        int[] interned = new int[lines.size()];
+        int i = 0;
+        for (String line : lines) {
+            Integer id = ids.putIfAbsent(line, ids.size());
+            interned[i++] = id != null ? id : ids.size() - 1;
+        }
+        return interned;
+    }
+}
@@ -0,0 +1,108 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Difference;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compares lines of modified section word by word or character by character, using histogram diff of units
+ * interned the same way as lines. Lines of section are paired in order. Lines without pair are changed as a whole,
+ * so they are not listed. Lines compared after budget of the diff has been exceeded are marked as changed as a whole.
+ */
+public final class IntraLineDiff {
+    private IntraLineDiff() {
+    }
+
+    /**
+     * @param previousLines lines of section in previous version
+     * @param currentLines  lines of section in current version
+     * @param maxLineLength longer lines are marked as changed as a whole
+     */
+    public static List<LineChange> diff(Difference difference, List<String> previousLines, List<String> currentLines,
+                                        IntraLineGranularity granularity, int maxLineLength) {
+        return diff(difference, previousLines, currentLines, granularity, maxLineLength, DiffBudget.unlimited());
+    }
+
+    /**
+     * @param budget budget shared by comparisons of all lines
+     */
+    public static List<LineChange> diff(Difference difference, List<String> previousLines, List<String> currentLines,
+                                        IntraLineGranularity granularity, int maxLineLength, DiffBudget budget) {
+        int pairs = Math.min(previousLines.size(), currentLines.size());
+        List<LineChange> lineChanges = new ArrayList<>(pairs);
+        boolean withinBudget = true;
+        for (int i = 0; i < pairs; i++) {
+            int previousLineIndex = difference.getPreviousSectionStart() + i;
+            int currentLineIndex = difference.getNewSectionStart() + i;
+            String previousLine = previousLines.get(i);
+            String currentLine = currentLines.get(i);
+            if (withinBudget && previousLine.length() <= maxLineLength && currentLine.length() <= maxLineLength) {
+                try {
+                    lineChanges.add(diffLine(previousLineIndex, previousLine, currentLineIndex, currentLine,
+                            granularity, budget));
+                    continue;
+                } catch (DiffBudgetExceededException e) {
+                    withinBudget = false;
+                }
+            }
+            lineChanges.add(new LineChange(previousLineIndex, currentLineIndex, wholeLine(previousLine),
+                    wholeLine(currentLine), true));
+        }
+        return lineChanges;
+    }
+
+    private static LineChange diffLine(int previousLineIndex, String previousLine, int currentLineIndex,
+                                       String currentLine, IntraLineGranularity granularity, DiffBudget budget) {
+        Units previousUnits = new Units(previousLine, granularity);
+        Units currentUnits = new Units(currentLine, granularity);
+        List<TextRange> deleted = new ArrayList<>();
+        List<TextRange> inserted = new ArrayList<>();
+        InternedLines units = new InternedLines(previousUnits.units, currentUnits.units);
+        for (Edit edit : new HistogramDiff(units, budget).diff()) {
+            if (edit.getPreviousStart() < edit.getPreviousEnd()) {
+                deleted.add(previousUnits.toTextRange(edit.getPreviousStart(), edit.getPreviousEnd()));
+            }
+            if (edit.getCurrentStart() < edit.getCurrentEnd()) {
+                inserted.add(currentUnits.toTextRange(edit.getCurrentStart(), edit.getCurrentEnd()));
+            }
+        }
+        return new LineChange(previousLineIndex, currentLineIndex, deleted, inserted, false);
+    }
+
+    private static List<TextRange> wholeLine(String line) {
+        return line.isEmpty() ? Collections.emptyList() : Collections.singletonList(new TextRange(0, line.length()));
+    }
+
+    /**
+     * Line split into compared units, with offsets of their first characters.
+     */
+    private static class Units {
+        private final List<String> units = new ArrayList<>();
+        private final int[] offsets;
+
+        private Units(String line, IntraLineGranularity granularity) {
+            int[] starts = new int[line.length() + 1];
+            int i = 0;
+            while (i < line.length()) {
+                int start = i;
+                int codePoint = line.codePointAt(i);
+                i += Character.charCount(codePoint);
+                if (granularity == IntraLineGranularity.WORD && Character.isLetterOrDigit(codePoint)) {
+                    while (i < line.length() && Character.isLetterOrDigit(line.codePointAt(i))) {
+                        i += Character.charCount(line.codePointAt(i));
+                    }
+                }
+                starts[units.size()] = start;
+                units.add(line.substring(start, i));
+            }
+            starts[units.size()] = line.length();
+            offsets = starts;
+        }
+
+        private TextRange toTextRange(int startUnit, int endUnit) {
+            return new TextRange(offsets[startUnit], offsets[endUnit]);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+/**
+ * Units compared within modified lines.
+ */
+public enum IntraLineGranularity {
+    /**
+     * Sequences of letters and digits. Every other character is compared separately.
+     */
+    WORD,
+
+    CHARACTER
+}
@@ -0,0 +1,24 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+import lombok.NonNull;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Parts of line of previous version, which have been deleted, and parts of the corresponding line of current
+ * version, which have been inserted. Whole lines are marked as changed, if they are too long to be compared, or if
+ * their comparison exceeded budget.
+ */
+@Value
+public class LineChange {
+    int previousLine, currentLine;
+
+    @NonNull
+    List<TextRange> deleted;
+
+    @NonNull
+    List<TextRange> inserted;
+
+    boolean wholeLine;
+}
@@ -0,0 +1,19 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Difference;
+
+import java.util.List;
+
+/**
+ * Computes differences between lines of two versions, ordered by their position.
+ */
+public interface LineDiffAlgorithm {
+    default List<Difference> diff(List<String> previousLines, List<String> currentLines) {
+        return diff(previousLines, currentLines, DiffBudget.unlimited());
+    }
+
+    /**
+     * @throws DiffBudgetExceededException if differences could not be computed within budget
+     */
+    List<Difference> diff(List<String> previousLines, List<String> currentLines, DiffBudget budget);
+}
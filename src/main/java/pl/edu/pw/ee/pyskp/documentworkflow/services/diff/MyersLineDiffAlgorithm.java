@@ -0,0 +1,43 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+import difflib.Chunk;
+import difflib.Delta;
+import difflib.DiffUtils;
+import difflib.Patch;
+import difflib.myers.Equalizer;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Difference;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.DifferenceType;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Myers algorithm of java-diff-utils, comparing lines as strings. Budget is charged for each comparison.
+ */
+public class MyersLineDiffAlgorithm implements LineDiffAlgorithm {
+    @Override
+    public List<Difference> diff(List<String> previousLines, List<String> currentLines, DiffBudget budget) {
+        Equalizer<String> equalizer = (previousLine, currentLine) -> {
+            budget.charge(1);
+            return previousLine.equals(currentLine);
+        };
+        Patch<String> diff = DiffUtils.diff(previousLines, currentLines, equalizer);
+        return diff.getDeltas().stream()
+                .map(MyersLineDiffAlgorithm::mapDeltaToDifference)
+                .collect(Collectors.toList());
+    }
+
+    private static Difference mapDeltaToDifference(Delta<String> delta) {
+        Chunk<String> original = delta.getOriginal();
+        Chunk<String> revised = delta.getRevised();
+        Difference difference = new Difference();
+        difference.setPreviousSectionStart(original.getPosition());
+        difference.setPreviousSectionSize(original.size());
+        difference.setNewSectionStart(revised.getPosition());
+        difference.setNewSectionSize(revised.size());
+        DifferenceType differenceType = DifferenceType.fromDeltaType(delta.getType())
+                .orElseThrow(() -> new IllegalArgumentException("Delta type is null"));
+        difference.setDifferenceType(differenceType);
+        return difference;
+    }
+}
@@ -0,0 +1,99 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Difference;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Splits large versions at lines occurring exactly once in both of them, in the same order, and compares segments
+ * between them in parallel by another algorithm. Segments are joined until they reach minimal size, so their
+ * comparison outweighs scheduling. Splitting lines are always matched, so differences may be longer than ones of the
+ * other algorithm applied to whole versions. Segments are compared in own fork-join pool, shut down on close.
+ */
+public class ParallelLineDiffAlgorithm implements LineDiffAlgorithm, AutoCloseable {
+    private final LineDiffAlgorithm segmentAlgorithm;
+    private final ForkJoinPool pool;
+    private final int minLines;
+    private final int minSegmentLines;
+
+    /**
+     * @param threads         number of threads comparing segments
+     * @param minLines        minimal number of lines of both versions compared in parallel, smaller versions are
+     *                        compared by segment algorithm directly
+     * @param minSegmentLines minimal number of lines of both versions in single segment
+     */
+    public ParallelLineDiffAlgorithm(LineDiffAlgorithm segmentAlgorithm, int threads, int minLines,
+                                     int minSegmentLines) {
+        this.segmentAlgorithm = segmentAlgorithm;
+        this.pool = new ForkJoinPool(threads);
+        this.minLines = minLines;
+        this.minSegmentLines = minSegmentLines;
+    }
+
+    @Override
+    public List<Difference> diff(List<String> previousLines, List<String> currentLines, DiffBudget budget) {
+        if (previousLines.size() + currentLines.size() < minLines) {
+            return segmentAlgorithm.diff(previousLines, currentLines, budget);
+        }
+        List<int[]> segments = split(previousLines, currentLines);
+        if (segments.size() < 2) {
+            return segmentAlgorithm.diff(previousLines, currentLines, budget);
+        }
+
+        List<ForkJoinTask<List<Difference>>> tasks = new ArrayList<>(segments.size());
+        for (int[] segment : segments) {
+            DiffBudget segmentBudget = budget.fork();
+            tasks.add(pool.submit(() -> diffSegment(previousLines, currentLines, segment, segmentBudget)));
+        }
+        List<Difference> differences = new ArrayList<>();
+        try {
+            for (ForkJoinTask<List<Difference>> task : tasks) {
+                differences.addAll(task.join());
+            }
+        } catch (RuntimeException e) {
+            tasks.forEach(task -> task.cancel(false));
+            throw e;
+        }
+        return differences;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * @return bounds of segments, as lines [previousStart, previousEnd) of previous version and
+     * [currentStart, currentEnd) of current one
+     */
+    private List<int[]> split(List<String> previousLines, List<String> currentLines) {
+        AnchorDiff anchorDiff = new AnchorDiff(new InternedLines(previousLines, currentLines));
+        List<int[]> segments = new ArrayList<>();
+        int previousStart = 0;
+        int currentStart = 0;
+        for (int anchor : anchorDiff.findAnchors()) {
+            int previousAnchor = anchorDiff.getPreviousPosition(anchor);
+            if (previousAnchor - previousStart + anchor - currentStart >= minSegmentLines) {
+                segments.add(new int[]{previousStart, previousAnchor, currentStart, anchor});
+                previousStart = previousAnchor + 1;
+                currentStart = anchor + 1;
+            }
+        }
+        segments.add(new int[]{previousStart, previousLines.size(), currentStart, currentLines.size()});
+        return segments;
+    }
+
+    private List<Difference> diffSegment(List<String> previousLines, List<String> currentLines, int[] segment,
+                                         DiffBudget budget) {
+        List<Difference> differences = segmentAlgorithm.diff(previousLines.subList(segment[0], segment[1]),
+                currentLines.subList(segment[2], segment[3]), budget);
+        for (Difference difference : differences) {
+            difference.setPreviousSectionStart(difference.getPreviousSectionStart() + segment[0]);
+            difference.setNewSectionStart(difference.getNewSectionStart() + segment[2]);
+        }
+        return differences;
+    }
+}
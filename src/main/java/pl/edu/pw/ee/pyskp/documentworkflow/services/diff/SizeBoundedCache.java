@@ -0,0 +1,41 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Map evicting the least recently used entries, when approximate size of values exceeds limit. Limit is read on each
+ * insertion, so it follows configuration.
+ */
+class SizeBoundedCache<K, V> {
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ToLongFunction<V> sizeEstimator;
+    private final LongSupplier maxSize;
+    private long size;
+
+    SizeBoundedCache(ToLongFunction<V> sizeEstimator, LongSupplier maxSize) {
+        this.sizeEstimator = sizeEstimator;
+        this.maxSize = maxSize;
+    }
+
+    synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    synchronized void put(K key, V value) {
+        long valueSize = sizeEstimator.applyAsLong(value);
+        long limit = maxSize.getAsLong();
+        if (valueSize > limit) {
+            return;
+        }
+        V replaced = entries.put(key, value);
+        size += valueSize - (replaced != null ? sizeEstimator.applyAsLong(replaced) : 0);
+        Iterator<V> eldest = entries.values().iterator();
+        while (size > limit) {
+            size -= sizeEstimator.applyAsLong(eldest.next());
+            eldest.remove();
+        }
+    }
+}
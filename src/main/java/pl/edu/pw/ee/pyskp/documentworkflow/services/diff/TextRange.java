@@ -0,0 +1,11 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+import lombok.Value;
+
+/**
+ * Characters [start, end) of line.
+ */
+@Value
+public class TextRange {
+    int start, end;
+}
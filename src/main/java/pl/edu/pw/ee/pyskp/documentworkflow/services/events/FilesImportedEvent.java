@@ -0,0 +1,23 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.events;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.FileMetadata;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Task;
+
+import java.util.List;
+
+/**
+ * Published once for all files imported together, instead of {@link FileCreatedEvent} for each of them.
+ */
+@Getter
+public class FilesImportedEvent extends ApplicationEvent {
+    private final Task task;
+    private final List<FileMetadata> importedFiles;
+
+    public FilesImportedEvent(Object source, Task task, List<FileMetadata> importedFiles) {
+        super(source);
+        this.task = task;
+        this.importedFiles = importedFiles;
+    }
+}
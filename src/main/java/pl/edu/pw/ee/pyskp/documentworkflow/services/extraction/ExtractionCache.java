@@ -0,0 +1,258 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.extraction;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tika.Tika;
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.parser.CompositeParser;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.parser.ParserDecorator;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.ParsingConfig;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.TikaConfiguration;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ExtractionCacheEntry;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.ExtractionCacheEntryRepository;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.CheckSums;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.CompressionCodec;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.JoinedLines;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Lines extracted from contents, so identical contents are not parsed again. Entries are kept in memory, with
+ * the least recently used ones evicted first, and in database. Key contains fingerprint of Tika version and
+ * configuration, classes and versions of parsers, and of forking them, so entries extracted by other configuration
+ * are never used.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class ExtractionCache {
+    private static final CompressionCodec CODEC = CompressionCodec.DEFLATE;
+    private static final String METRIC = "dws.extraction.cache";
+    private static final byte LINE_SEPARATOR = '\n';
+
+    @NonNull
+    private final ParsingConfig parsingConfig;
+
+    @NonNull
+    private final ExtractionCacheEntryRepository extractionCacheEntryRepository;
+
+    @NonNull
+    private final Tika tika;
+
+    @NonNull
+    private final TikaConfig tikaConfig;
+
+    @NonNull
+    private final MeterRegistry meterRegistry;
+
+    private final LinkedHashMap<String, List<String>> memoryEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private long memorySize;
+    private String tikaFingerprint;
+
+    @PostConstruct
+    public void computeTikaFingerprint() throws IOException {
+        MessageDigest digest = CheckSums.newDigest();
+        digest.update(tika.toString().getBytes(StandardCharsets.UTF_8));
+        try (InputStream config = new ClassPathResource(TikaConfiguration.CONFIG_LOCATION).getInputStream()) {
+            digest.update(config.readAllBytes());
+        }
+        List<String> parsers = new ArrayList<>();
+        parsers.add("fork=" + parsingConfig.getFork().isEnabled());
+        parsers.add(describe(tika.getParser()));
+        describeAll(tikaConfig.getParser(), parsers);
+        for (String parser : parsers) {
+            digest.update(LINE_SEPARATOR);
+            digest.update(parser.getBytes(StandardCharsets.UTF_8));
+        }
+        tikaFingerprint = CheckSums.toCheckSum(digest.digest());
+    }
+
+    /**
+     * Adds descriptions of parser and parsers composed in it or decorated by it, in order of their use.
+     */
+    private static void describeAll(Parser parser, List<String> descriptions) {
+        descriptions.add(describe(parser));
+        if (parser instanceof CompositeParser) {
+            for (Parser component : ((CompositeParser) parser).getAllComponentParsers()) {
+                describeAll(component, descriptions);
+            }
+        } else if (parser instanceof ParserDecorator) {
+            describeAll(((ParserDecorator) parser).getWrappedParser(), descriptions);
+        }
+    }
+
+    private static String describe(Parser parser) {
+        Package parserPackage = parser.getClass().getPackage();
+        String version = parserPackage != null ? parserPackage.getImplementationVersion() : null;
+        return parser.getClass().getName() + ":" + version;
+    }
+
+    public Optional<List<String>> get(String checkSum) {
+        if (!parsingConfig.getCache().isEnabled()) {
+            return Optional.empty();
+        }
+        String key = toKey(checkSum);
+        List<String> lines;
+        synchronized (memoryEntries) {
+            lines = memoryEntries.get(key);
+        }
+        record("memory", lines != null);
+        if (lines != null) {
+            return Optional.of(lines);
+        }
+        Optional<List<String>> persistedLines = extractionCacheEntryRepository.findById(key)
+                .map(this::readLines);
+        record("persistent", persistedLines.isPresent());
+        persistedLines.ifPresent(found -> putInMemory(key, found));
+        return persistedLines;
+    }
+
+    /**
+     * Returns writer caching lines extracted from content with given check sum, as they are extracted. Lines are
+     * kept in memory only while they fit in memory tier, and compressed only while they fit in persistent tier.
+     */
+    public Writer openWriter(String checkSum) {
+        return new Writer(checkSum);
+    }
+
+    public class Writer implements Consumer<String> {
+        private final String checkSum;
+        private List<String> lines;
+        private long linesSize;
+        private ByteArrayOutputStream compressedLines;
+        private OutputStream compressingStream;
+        private int lineCount;
+
+        private Writer(String checkSum) {
+            this.checkSum = checkSum;
+            if (parsingConfig.getCache().isEnabled()) {
+                lines = new ArrayList<>();
+                compressedLines = new ByteArrayOutputStream();
+                compressingStream = CODEC.compressTo(compressedLines);
+            }
+        }
+
+        @Override
+        public void accept(String line) {
+            if (lines != null) {
+                linesSize += estimateSize(line);
+                if (linesSize <= parsingConfig.getCache().getMemorySize().toBytes()) {
+                    lines.add(line);
+                } else {
+                    lines = null;
+                }
+            }
+            if (compressingStream != null) {
+                try {
+                    if (lineCount++ > 0) {
+                        compressingStream.write(LINE_SEPARATOR);
+                    }
+                    compressingStream.write(line.getBytes(StandardCharsets.UTF_8));
+                    if (compressedLines.size() > parsingConfig.getCache().getMaxPersistedSize().toBytes()) {
+                        compressingStream = null;
+                        compressedLines = null;
+                    }
+                } catch (IOException e) {
+                    log.error("Lines extracted from " + checkSum + " could not be compressed", e);
+                    compressingStream = null;
+                    compressedLines = null;
+                }
+            }
+        }
+
+        /**
+         * Caches all lines passed to writer. Has to be called only after whole content has been extracted.
+         */
+        public void commit() {
+            String key = toKey(checkSum);
+            if (lines != null) {
+                putInMemory(key, lines);
+            }
+            if (compressingStream == null) {
+                return;
+            }
+            try {
+                compressingStream.close();
+                if (compressedLines.size() > parsingConfig.getCache().getMaxPersistedSize().toBytes()) {
+                    return;
+                }
+                ExtractionCacheEntry entry = new ExtractionCacheEntry();
+                entry.setKey(key);
+                entry.setCompressedLines(compressedLines.toByteArray());
+                entry.setLineCount(lineCount);
+                entry.setCreationDate(new Date());
+                extractionCacheEntryRepository.insert(entry);
+            } catch (DuplicateKeyException e) {
+                log.debug("Lines extracted from {} have been cached concurrently", checkSum);
+            } catch (IOException e) {
+                log.error("Lines extracted from " + checkSum + " could not be cached", e);
+            }
+        }
+    }
+
+    private void putInMemory(String key, List<String> lines) {
+        long size = estimateSize(lines);
+        long maxSize = parsingConfig.getCache().getMemorySize().toBytes();
+        if (size > maxSize) {
+            return;
+        }
+        synchronized (memoryEntries) {
+            List<String> replaced = memoryEntries.put(key, Collections.unmodifiableList(lines));
+            memorySize += size - (replaced != null ? estimateSize(replaced) : 0);
+            Iterator<List<String>> eldest = memoryEntries.values().iterator();
+            while (memorySize > maxSize) {
+                memorySize -= estimateSize(eldest.next());
+                eldest.remove();
+            }
+        }
+    }
+
+    private List<String> readLines(ExtractionCacheEntry entry) {
+        try {
+            byte[] joinedLines = CODEC.decompress(entry.getCompressedLines());
+            return entry.getLineCount() != null
+                    ? JoinedLines.split(joinedLines, entry.getLineCount())
+                    : JoinedLines.split(joinedLines);
+        } catch (IOException e) {
+            log.error("Cached lines " + entry.getKey() + " could not be read", e);
+            return null;
+        }
+    }
+
+    private String toKey(String checkSum) {
+        return checkSum + ":" + tikaFingerprint;
+    }
+
+    private void record(String tier, boolean hit) {
+        meterRegistry.counter(METRIC, "tier", tier, "result", hit ? "hit" : "miss").increment();
+    }
+
+    /**
+     * Estimates memory used by lines, counting two bytes per character and fixed overhead per line.
+     */
+    private static long estimateSize(List<String> lines) {
+        long size = 0;
+        for (String line : lines) {
+            size += estimateSize(line);
+        }
+        return size;
+    }
+
+    private static long estimateSize(String line) {
+        return 40 + 2L * line.length();
+    }
+}
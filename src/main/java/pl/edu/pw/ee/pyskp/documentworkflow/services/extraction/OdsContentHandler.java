@@ -0,0 +1,131 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.extraction;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Reads rows of OpenDocument spreadsheet from its {@code content.xml} as SAX events, keeping only the current
+ * cell in memory. Repeated rows and cells are expanded, unless they are empty.
+ */
+@RequiredArgsConstructor
+class OdsContentHandler extends DefaultHandler {
+    private static final String OFFICE_NS = "urn:oasis:names:tc:opendocument:xmlns:office:1.0";
+    private static final String TABLE_NS = "urn:oasis:names:tc:opendocument:xmlns:table:1.0";
+    private static final String TEXT_NS = "urn:oasis:names:tc:opendocument:xmlns:text:1.0";
+
+    @NonNull
+    private final SpreadsheetRowWriter rows;
+
+    private final StringBuilder cellText = new StringBuilder();
+    private int rowRepeated;
+    private int cellRepeated;
+    private int column;
+    private int paragraphs;
+    private int annotationDepth;
+    private boolean inCell;
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes)
+            throws SAXException {
+        if (OFFICE_NS.equals(uri) && "annotation".equals(localName)) {
+            annotationDepth++;
+        } else if (annotationDepth > 0) {
+            return;
+        } else if (TABLE_NS.equals(uri)) {
+            startTableElement(localName, attributes);
+        } else if (TEXT_NS.equals(uri) && inCell) {
+            startTextElement(localName, attributes);
+        }
+    }
+
+    private void startTableElement(String localName, Attributes attributes) throws SAXException {
+        switch (localName) {
+            case "table":
+                rows.startSheet(attributes.getValue(TABLE_NS, "name"));
+                break;
+            case "table-row":
+                rowRepeated = getRepeated(attributes, "number-rows-repeated");
+                column = 0;
+                rows.startRow();
+                break;
+            case "table-cell":
+            case "covered-table-cell":
+                cellRepeated = getRepeated(attributes, "number-columns-repeated");
+                cellText.setLength(0);
+                paragraphs = 0;
+                inCell = true;
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void startTextElement(String localName, Attributes attributes) {
+        switch (localName) {
+            case "p":
+            case "h":
+                if (paragraphs++ > 0) {
+                    cellText.append(' ');
+                }
+                break;
+            case "s":
+                for (int spaces = getRepeated(attributes, TEXT_NS, "c"); spaces > 0; spaces--) {
+                    cellText.append(' ');
+                }
+                break;
+            case "tab":
+            case "line-break":
+                cellText.append(' ');
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        if (OFFICE_NS.equals(uri) && "annotation".equals(localName)) {
+            annotationDepth--;
+        } else if (annotationDepth == 0 && TABLE_NS.equals(uri)) {
+            if ("table-cell".equals(localName) || "covered-table-cell".equals(localName)) {
+                endCell();
+            } else if ("table-row".equals(localName)) {
+                rows.endRow(rowRepeated);
+            }
+        }
+    }
+
+    private void endCell() {
+        if (cellText.length() > 0) {
+            String value = cellText.toString();
+            for (int i = 0; i < cellRepeated; i++) {
+                rows.cell(column + i, value);
+            }
+        }
+        column += cellRepeated;
+        inCell = false;
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (inCell && annotationDepth == 0) {
+            cellText.append(ch, start, length);
+        }
+    }
+
+    private static int getRepeated(Attributes attributes, String name) {
+        return getRepeated(attributes, TABLE_NS, name);
+    }
+
+    private static int getRepeated(Attributes attributes, String namespace, String name) {
+        String value = attributes.getValue(namespace, name);
+        try {
+            return value != null ? Math.max(Integer.parseInt(value), 1) : 1;
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+}
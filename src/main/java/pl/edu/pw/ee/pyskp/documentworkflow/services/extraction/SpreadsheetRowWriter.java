@@ -0,0 +1,54 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.extraction;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.apache.tika.sax.XHTMLContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * Writes spreadsheet rows as paragraphs, one line per row, with cells separated by tabulators. Empty cells keep
+ * their place, so cells of the same column are at the same position in every line. Empty rows are skipped.
+ */
+@RequiredArgsConstructor
+class SpreadsheetRowWriter {
+    private static final char CELL_SEPARATOR = '\t';
+
+    @NonNull
+    private final XHTMLContentHandler xhtml;
+
+    private final StringBuilder row = new StringBuilder();
+    private int lastColumn = -1;
+
+    void startSheet(String name) throws SAXException {
+        xhtml.element("h1", name);
+    }
+
+    void startRow() {
+        row.setLength(0);
+        lastColumn = -1;
+    }
+
+    /**
+     * Appends value of cell, which has to be on the right of cells appended before.
+     */
+    void cell(int column, String value) {
+        if (value == null || value.isEmpty() || column <= lastColumn) {
+            return;
+        }
+        for (int separators = lastColumn < 0 ? column : column - lastColumn; separators > 0; separators--) {
+            row.append(CELL_SEPARATOR);
+        }
+        row.append(value);
+        lastColumn = column;
+    }
+
+    void endRow(int repeated) throws SAXException {
+        if (lastColumn < 0) {
+            return;
+        }
+        String text = row.toString();
+        for (int i = 0; i < repeated; i++) {
+            xhtml.element("p", text);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.extraction;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TemporaryResources;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.AbstractParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.sax.OfflineContentHandler;
+import org.apache.tika.sax.XHTMLContentHandler;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ContentType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Extracts rows of XLSX and ODS spreadsheets from SAX events, without building model of the whole workbook, so
+ * memory used does not depend on number of rows. Each sheet starts with its name, followed by one line per row.
+ * Registered in {@code tika-config.xml} in place of OOXML and OpenDocument parsers for these types.
+ */
+public class StreamingSpreadsheetParser extends AbstractParser {
+    private static final MediaType XLSX = MediaType.parse(ContentType.EXCEL_2007_SPREADSHEET.getName());
+    private static final MediaType ODS = MediaType.parse(ContentType.OPEN_DOCUMENT_SPREADSHEET.getName());
+    private static final Set<MediaType> SUPPORTED_TYPES = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList(XLSX, ODS)));
+    private static final String ODS_CONTENT = "content.xml";
+
+    @Override
+    public Set<MediaType> getSupportedTypes(ParseContext context) {
+        return SUPPORTED_TYPES;
+    }
+
+    @Override
+    public void parse(InputStream stream, ContentHandler handler, Metadata metadata, ParseContext context)
+            throws IOException, SAXException, TikaException {
+        XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+        SpreadsheetRowWriter rows = new SpreadsheetRowWriter(xhtml);
+        String contentType = metadata.get(Metadata.CONTENT_TYPE);
+        boolean ods = contentType != null && ODS.equals(MediaType.parse(contentType).getBaseType());
+        TemporaryResources temporaryResources = new TemporaryResources();
+        try {
+            TikaInputStream tikaInputStream = TikaInputStream.get(stream, temporaryResources);
+            xhtml.startDocument();
+            if (ods) {
+                parseOds(tikaInputStream, rows, context);
+            } else {
+                parseXlsx(tikaInputStream, rows, context);
+            }
+            xhtml.endDocument();
+        } finally {
+            temporaryResources.dispose();
+        }
+    }
+
+    private static void parseXlsx(TikaInputStream stream, SpreadsheetRowWriter rows, ParseContext context)
+            throws IOException, SAXException, TikaException {
+        try (OPCPackage opcPackage = OPCPackage.open(stream.getFile(), PackageAccess.READ)) {
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(opcPackage);
+            XSSFReader reader = new XSSFReader(opcPackage);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    rows.startSheet(sheets.getSheetName());
+                    XMLReader xmlReader = context.getSAXParser().getXMLReader();
+                    xmlReader.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), null, strings,
+                            new XlsxSheetHandler(rows), new DataFormatter(), false));
+                    xmlReader.parse(new InputSource(sheet));
+                } catch (UncheckedSAXException e) {
+                    throw e.getCause();
+                }
+            }
+        } catch (OpenXML4JException e) {
+            throw new TikaException("Spreadsheet could not be opened", e);
+        }
+    }
+
+    private static void parseOds(TikaInputStream stream, SpreadsheetRowWriter rows, ParseContext context)
+            throws IOException, SAXException, TikaException {
+        try (ZipFile zipFile = new ZipFile(stream.getFile())) {
+            ZipEntry content = zipFile.getEntry(ODS_CONTENT);
+            if (content == null) {
+                throw new TikaException("Spreadsheet has no " + ODS_CONTENT);
+            }
+            try (InputStream contentStream = zipFile.getInputStream(content)) {
+                context.getSAXParser().parse(contentStream,
+                        new OfflineContentHandler(new OdsContentHandler(rows)));
+            }
+        }
+    }
+
+    private static class XlsxSheetHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final SpreadsheetRowWriter rows;
+        private int nextColumn;
+
+        private XlsxSheetHandler(SpreadsheetRowWriter rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            nextColumn = 0;
+            rows.startRow();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            try {
+                rows.endRow(1);
+            } catch (SAXException e) {
+                throw new UncheckedSAXException(e);
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : nextColumn;
+            rows.cell(column, formattedValue);
+            nextColumn = column + 1;
+        }
+
+        @Override
+        public void headerFooter(String text, boolean isHeader, String tagName) {
+        }
+    }
+
+    /**
+     * Passes writing errors through callbacks of POI, which cannot throw checked exceptions.
+     */
+    private static class UncheckedSAXException extends RuntimeException {
+        private UncheckedSAXException(SAXException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized SAXException getCause() {
+            return (SAXException) super.getCause();
+        }
+    }
+}
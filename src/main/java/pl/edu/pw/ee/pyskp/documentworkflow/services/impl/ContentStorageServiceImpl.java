@@ -0,0 +1,386 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.impl;
+
+import com.mongodb.client.result.DeleteResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.StorageConfig;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ContentBlob;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ContentType;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.StorageTier;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.ContentBlobRepository;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.BinaryDelta;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.BlobStore;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.CheckSums;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.ColdBlobStore;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.CompressionCodec;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.ContentStorageService;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.util.Date;
+import java.util.Optional;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class ContentStorageServiceImpl implements ContentStorageService {
+    private static final String CHECK_SUM = "checkSum";
+    private static final String REFERENCE_COUNT = "referenceCount";
+    private static final String BLOB_ID = "blobId";
+    private static final String TIER = "tier";
+    private static final String LAST_ACCESS_DATE = "lastAccessDate";
+    private static final String TIER_READS_METRIC = "dws.storage.tier.reads";
+    private static final int MAX_STORE_ATTEMPTS = 3;
+    private static final String STAGED_BLOB_NAME = "upload";
+
+    @NonNull
+    private final MongoOperations mongoOperations;
+
+    @NonNull
+    private final ContentBlobRepository contentBlobRepository;
+
+    @NonNull
+    private final BlobStore blobStore;
+
+    @NonNull
+    private final StorageConfig storageConfig;
+
+    @NonNull
+    private final ColdBlobStore coldBlobStore;
+
+    @NonNull
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public String store(InputStream content, String baseCheckSum, ContentType contentType) throws IOException {
+        CompressionCodec codec = storageConfig.getCompression().getContentCodec(contentType);
+        MeasuringInputStream measuredContent = new MeasuringInputStream(content);
+        String stagedBlobId = blobStore.store(STAGED_BLOB_NAME, codec.compress(measuredContent));
+        String checkSum = measuredContent.getCheckSum();
+
+        ContentBlob contentBlob = null;
+        boolean inserted = false;
+        try {
+            for (int attempt = 0; attempt < MAX_STORE_ATTEMPTS; attempt++) {
+                if (retain(checkSum)) {
+                    return checkSum;
+                }
+                if (contentBlob == null) {
+                    contentBlob = commit(checkSum, stagedBlobId, measuredContent.getSize(), codec, baseCheckSum);
+                }
+                if (insert(contentBlob)) {
+                    inserted = true;
+                    return checkSum;
+                }
+            }
+            throw new IllegalStateException("Content " + checkSum + " could not be stored");
+        } finally {
+            // content has been retained by existing blob or it could not be stored at all
+            if (!inserted) {
+                if (contentBlob == null) {
+                    blobStore.delete(stagedBlobId);
+                } else {
+                    discard(contentBlob);
+                }
+            }
+        }
+    }
+
+    private ContentBlob commit(String checkSum, String stagedBlobId, long size, CompressionCodec codec,
+                               String baseCheckSum) throws IOException {
+        ContentBlob contentBlob = new ContentBlob();
+        contentBlob.setCheckSum(checkSum);
+        contentBlob.setSize(size);
+        contentBlob.setReferenceCount(1);
+        contentBlob.setBlobId(stagedBlobId);
+        contentBlob.setLastAccessDate(new Date());
+        if (codec != CompressionCodec.NONE) {
+            contentBlob.setCodec(codec);
+        }
+
+        Optional<ContentBlob> base = findDeltaBase(size, baseCheckSum);
+        if (base.isPresent() && retain(base.get().getCheckSum())) {
+            boolean deltaStored = false;
+            try {
+                byte[] content = readBlob(blobStore, stagedBlobId, codec);
+                byte[] delta = BinaryDelta.encode(readContent(base.get()), content);
+                if (delta.length <= storageConfig.getDelta().getMaxSizeRatio() * content.length) {
+                    contentBlob.setBlobId(blobStore.store(checkSum, codec.compress(new ByteArrayInputStream(delta))));
+                    contentBlob.setBaseCheckSum(base.get().getCheckSum());
+                    contentBlob.setChainLength(base.get().getChainLength() + 1);
+                    deltaStored = true;
+                    blobStore.delete(stagedBlobId);
+                    return contentBlob;
+                }
+            } finally {
+                if (!deltaStored) {
+                    release(base.get().getCheckSum());
+                }
+            }
+        }
+        return contentBlob;
+    }
+
+    private Optional<ContentBlob> findDeltaBase(long size, String baseCheckSum) {
+        StorageConfig.Delta deltaConfig = storageConfig.getDelta();
+        long maxContentSize = deltaConfig.getMaxContentSize().toBytes();
+        if (!deltaConfig.isEnabled() || baseCheckSum == null || size > maxContentSize) {
+            return Optional.empty();
+        }
+        return contentBlobRepository.findById(baseCheckSum)
+                .filter(base -> base.getSize() <= maxContentSize)
+                .filter(base -> base.getChainLength() + 1 < deltaConfig.getSnapshotInterval());
+    }
+
+    private boolean retain(String checkSum) {
+        Query activeBlob = query(where(CHECK_SUM).is(checkSum).and(REFERENCE_COUNT).gt(0));
+        return mongoOperations.updateFirst(activeBlob, new Update().inc(REFERENCE_COUNT, 1), ContentBlob.class)
+                .getModifiedCount() == 1;
+    }
+
+    private boolean insert(ContentBlob contentBlob) {
+        try {
+            mongoOperations.insert(contentBlob);
+            return true;
+        } catch (DuplicateKeyException e) {
+            log.debug("Content {} has been stored concurrently", contentBlob.getCheckSum());
+            return false;
+        }
+    }
+
+    private void discard(ContentBlob contentBlob) {
+        getStore(contentBlob).delete(contentBlob.getBlobId());
+        if (contentBlob.getBaseCheckSum() != null) {
+            release(contentBlob.getBaseCheckSum());
+        }
+    }
+
+    @Override
+    public InputStream open(String checkSum) throws IOException {
+        return open(getAccessedContentBlob(checkSum));
+    }
+
+    @Override
+    public InputStream openInCurrentTier(String checkSum) throws IOException {
+        return open(getContentBlob(checkSum));
+    }
+
+    private InputStream open(ContentBlob contentBlob) throws IOException {
+        if (contentBlob.getBaseCheckSum() == null) {
+            return getCodec(contentBlob).decompress(getStore(contentBlob).open(contentBlob.getBlobId()));
+        }
+        return new ByteArrayInputStream(readContent(contentBlob));
+    }
+
+    @Override
+    public Resource getResource(String checkSum) throws FileNotFoundException {
+        return new StoredContentResource(getAccessedContentBlob(checkSum));
+    }
+
+    /**
+     * Returns content blob, which is read by client, promoting it to hot tier. Bases of deltas are read from
+     * their current tiers, as they are not accessed directly.
+     */
+    private ContentBlob getAccessedContentBlob(String checkSum) throws FileNotFoundException {
+        ContentBlob contentBlob = getContentBlob(checkSum);
+        StorageTier tier = StorageTier.orHot(contentBlob.getTier());
+        meterRegistry.counter(TIER_READS_METRIC, "data", "content", "tier", tier.name().toLowerCase()).increment();
+        if (tier == StorageTier.COLD) {
+            try {
+                return promote(contentBlob);
+            } catch (IOException e) {
+                log.error("Content " + checkSum + " could not be promoted to hot tier", e);
+            }
+        }
+        return contentBlob;
+    }
+
+    private ContentBlob promote(ContentBlob contentBlob) throws IOException {
+        String hotBlobId;
+        try (InputStream cold = coldBlobStore.open(contentBlob.getBlobId())) {
+            hotBlobId = blobStore.store(contentBlob.getCheckSum(), cold);
+        }
+        boolean moved = mongoOperations.updateFirst(
+                query(where(CHECK_SUM).is(contentBlob.getCheckSum())
+                        .and(BLOB_ID).is(contentBlob.getBlobId())
+                        .and(TIER).is(StorageTier.COLD)),
+                new Update().set(BLOB_ID, hotBlobId).unset(TIER).set(LAST_ACCESS_DATE, new Date()),
+                ContentBlob.class
+        ).getModifiedCount() == 1;
+        if (moved) {
+            coldBlobStore.delete(contentBlob.getBlobId());
+        } else {
+            blobStore.delete(hotBlobId);
+        }
+        return getContentBlob(contentBlob.getCheckSum());
+    }
+
+    @Override
+    public boolean moveToColdTier(String checkSum) throws IOException {
+        Optional<ContentBlob> found = contentBlobRepository.findById(checkSum);
+        if (!found.isPresent() || found.get().getTier() == StorageTier.COLD) {
+            return false;
+        }
+        ContentBlob contentBlob = found.get();
+        String coldBlobId;
+        try (InputStream hot = blobStore.open(contentBlob.getBlobId())) {
+            coldBlobId = coldBlobStore.store(checkSum, hot);
+        }
+        boolean moved = mongoOperations.updateFirst(
+                query(where(CHECK_SUM).is(checkSum)
+                        .and(BLOB_ID).is(contentBlob.getBlobId())
+                        .and(TIER).ne(StorageTier.COLD)),
+                new Update().set(BLOB_ID, coldBlobId).set(TIER, StorageTier.COLD),
+                ContentBlob.class
+        ).getModifiedCount() == 1;
+        if (moved) {
+            blobStore.delete(contentBlob.getBlobId());
+        } else {
+            coldBlobStore.delete(coldBlobId);
+        }
+        return moved;
+    }
+
+    private BlobStore getStore(ContentBlob contentBlob) {
+        return contentBlob.getTier() == StorageTier.COLD ? coldBlobStore : blobStore;
+    }
+
+    private ContentBlob getContentBlob(String checkSum) throws FileNotFoundException {
+        return contentBlobRepository.findById(checkSum)
+                .orElseThrow(() -> new FileNotFoundException(checkSum));
+    }
+
+    private byte[] readContent(ContentBlob contentBlob) throws IOException {
+        byte[] storedBytes = readBlob(getStore(contentBlob), contentBlob.getBlobId(), getCodec(contentBlob));
+        if (contentBlob.getBaseCheckSum() == null) {
+            return storedBytes;
+        }
+        byte[] base = readContent(getContentBlob(contentBlob.getBaseCheckSum()));
+        return BinaryDelta.apply(base, storedBytes);
+    }
+
+    private static byte[] readBlob(BlobStore store, String blobId, CompressionCodec codec) throws IOException {
+        try (InputStream stored = codec.decompress(store.open(blobId))) {
+            return stored.readAllBytes();
+        }
+    }
+
+    private static CompressionCodec getCodec(ContentBlob contentBlob) {
+        return CompressionCodec.orNone(contentBlob.getCodec());
+    }
+
+    @Override
+    public void release(String checkSum) {
+        ContentBlob contentBlob = mongoOperations.findAndModify(
+                query(where(CHECK_SUM).is(checkSum)),
+                new Update().inc(REFERENCE_COUNT, -1),
+                FindAndModifyOptions.options().returnNew(true),
+                ContentBlob.class
+        );
+        if (contentBlob == null) {
+            log.warn("Released content {} does not exist", checkSum);
+            return;
+        }
+        if (contentBlob.getReferenceCount() > 0) {
+            return;
+        }
+        DeleteResult result = mongoOperations.remove(
+                query(where(CHECK_SUM).is(checkSum).and(REFERENCE_COUNT).lte(0)),
+                ContentBlob.class
+        );
+        if (result.getDeletedCount() == 1) {
+            discard(contentBlob);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private class StoredContentResource extends AbstractResource {
+        @NonNull
+        private final ContentBlob contentBlob;
+
+        @Override
+        public String getDescription() {
+            return "Stored content " + contentBlob.getCheckSum();
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return open(contentBlob);
+        }
+
+        @Override
+        public long contentLength() {
+            return contentBlob.getSize();
+        }
+
+        @Override
+        public boolean isFile() {
+            return getLocalPath().isPresent();
+        }
+
+        @Override
+        public File getFile() throws FileNotFoundException {
+            return getLocalPath()
+                    .map(Path::toFile)
+                    .orElseThrow(() -> new FileNotFoundException(getDescription() + " is not kept in local file"));
+        }
+
+        private Optional<Path> getLocalPath() {
+            if (contentBlob.getBaseCheckSum() != null || getCodec(contentBlob) != CompressionCodec.NONE
+                    || contentBlob.getTier() == StorageTier.COLD) {
+                return Optional.empty();
+            }
+            return blobStore.getLocalPath(contentBlob.getBlobId());
+        }
+    }
+
+    private static class MeasuringInputStream extends DigestInputStream {
+        @Getter
+        private long size;
+
+        MeasuringInputStream(InputStream content) {
+            super(content, CheckSums.newDigest());
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read != -1) {
+                size++;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                size += read;
+            }
+            return read;
+        }
+
+        String getCheckSum() {
+            return CheckSums.toCheckSum(getMessageDigest().digest());
+        }
+    }
+}
@@ -1,48 +1,81 @@
 package pl.edu.pw.ee.pyskp.documentworkflow.services.impl;
 
-import difflib.Chunk;
-import difflib.Delta;
-import difflib.DiffUtils;
-import difflib.Patch;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.DiffConfig;
 import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Difference;
 import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.DifferenceType;
 import pl.edu.pw.ee.pyskp.documentworkflow.services.DifferenceService;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.AnchorLineDiffAlgorithm;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.DiffBudget;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.DiffBudgetExceededException;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.DiffResult;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.LineDiffAlgorithm;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 /**
  * Created by piotr on 06.01.17.
  */
+@Slf4j
+@RequiredArgsConstructor
 @Service
 public class DifferenceServiceImpl implements DifferenceService {
+    @NonNull
+    private final LineDiffAlgorithm lineDiffAlgorithm;
+
+    @NonNull
+    private final DiffConfig diffConfig;
+
+    @NonNull
+    private final MeterRegistry meterRegistry;
+
+    private final LineDiffAlgorithm approximateLineDiffAlgorithm = new AnchorLineDiffAlgorithm();
+
     @Override
-    public List<Difference> createDifferencesForNewFile(List<String> lines) {
-        return getDifferencesBetweenTwoFiles(Collections.emptyList(), lines);
+    public List<Difference> createDifferencesForNewFile(int lineCount) {
+        if (lineCount == 0) {
+            return Collections.emptyList();
+        }
+        Difference difference = new Difference();
+        difference.setNewSectionSize(lineCount);
+        difference.setDifferenceType(DifferenceType.INSERT);
+        return Collections.singletonList(difference);
     }
 
     @Override
     public List<Difference> getDifferencesBetweenTwoFiles(List<String> previousVersionLines,
                                                           List<String> currentVersionLines) {
-        Patch<String> diff = DiffUtils.diff(previousVersionLines, currentVersionLines);
-        return diff.getDeltas().stream()
-                .map(this::mapDeltaToDifference)
-                .collect(Collectors.toList());
+        return lineDiffAlgorithm.diff(previousVersionLines, currentVersionLines);
     }
 
-    private Difference mapDeltaToDifference(Delta<String> delta) {
-        Chunk<String> original = delta.getOriginal();
-        Chunk<String> revised = delta.getRevised();
-        Difference difference = new Difference();
-        difference.setPreviousSectionStart(original.getPosition());
-        difference.setPreviousSectionSize(original.size());
-        difference.setNewSectionStart(revised.getPosition());
-        difference.setNewSectionSize(revised.size());
-        DifferenceType differenceType = DifferenceType.fromDeltaType(delta.getType())
-                .orElseThrow(() -> new IllegalArgumentException("Delta type is null"));
-        difference.setDifferenceType(differenceType);
-        return difference;
+    @Override
+    public DiffResult getDifferencesWithinBudget(List<String> previousVersionLines, List<String> currentVersionLines) {
+        DiffConfig.Budget budget = diffConfig.getBudget();
+        try {
+            return new DiffResult(lineDiffAlgorithm.diff(previousVersionLines, currentVersionLines,
+                    new DiffBudget(budget.getMaxComparisons(), budget.getTimeout())), false);
+        } catch (DiffBudgetExceededException e) {
+            log.info("{}, differences are approximated", e.getMessage());
+            meterRegistry.counter("dws.diff.approximated").increment();
+            return new DiffResult(approximateLineDiffAlgorithm.diff(previousVersionLines, currentVersionLines), true);
+        }
+    }
+
+    @Override
+    public Optional<List<Difference>> refineDifferences(List<String> previousVersionLines,
+                                                        List<String> currentVersionLines) {
+        try {
+            return Optional.of(lineDiffAlgorithm.diff(previousVersionLines, currentVersionLines,
+                    new DiffBudget(0, diffConfig.getRefinement().getTimeout())));
+        } catch (DiffBudgetExceededException e) {
+            log.warn("{}, differences stay approximate", e.getMessage());
+            return Optional.empty();
+        }
     }
 }
@@ -9,6 +9,7 @@ import org.springframework.context.event.EventListener;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
 import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ContentType;
 import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.FileMetadata;
 import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Task;
@@ -18,21 +19,26 @@ import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.TaskRepository;
 import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.VersionRepository;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.file.ContentTypeDTO;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.file.FileMetadataDTO;
+import pl.edu.pw.ee.pyskp.documentworkflow.dtos.file.ImportedFileDTO;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.file.NewFileForm;
 import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.FileNotFoundException;
 import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.ResourceNotFoundException;
 import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.TaskNotFoundException;
 import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.UnknownContentType;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.ContentStorageService;
 import pl.edu.pw.ee.pyskp.documentworkflow.services.FilesMetadataService;
-import pl.edu.pw.ee.pyskp.documentworkflow.services.TikaService;
 import pl.edu.pw.ee.pyskp.documentworkflow.services.VersionService;
 import pl.edu.pw.ee.pyskp.documentworkflow.services.events.FileCreatedEvent;
 import pl.edu.pw.ee.pyskp.documentworkflow.services.events.FileDeletedEvent;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.events.FilesImportedEvent;
 import pl.edu.pw.ee.pyskp.documentworkflow.services.events.VersionCreatedEvent;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.upload.ArchiveImporter;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.upload.ImportedEntry;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.upload.UploadPipeline;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.upload.UploadedContent;
 
 import java.io.IOException;
-import java.util.Date;
-import java.util.List;
+import java.util.*;
 
 /**
  * Created by piotr on 06.01.17.
@@ -41,6 +47,8 @@ import java.util.List;
 @RequiredArgsConstructor
 @Service
 public class FilesMetadataServiceImpl implements FilesMetadataService {
+    private static final int MAX_NAME_LENGTH = 255;
+
     @NonNull
     private final FileMetadataRepository fileMetadataRepository;
 
@@ -57,13 +65,13 @@ public class FilesMetadataServiceImpl implements FilesMetadataService {
     private final ApplicationEventPublisher applicationEventPublisher;
 
     @NonNull
-    private final TikaService tikaService;
+    private final UploadPipeline uploadPipeline;
 
-    private ContentType getContentType(byte[] file) throws UnknownContentType {
-        String contentType = tikaService.detectMediaType(file);
-        return ContentType.fromName(contentType)
-                .orElseThrow(() -> new UnknownContentType(contentType));
-    }
+    @NonNull
+    private final ArchiveImporter archiveImporter;
+
+    @NonNull
+    private final ContentStorageService contentStorageService;
 
     @Override
     @Transactional(rollbackFor = {UnknownContentType.class, ResourceNotFoundException.class})
@@ -79,15 +87,17 @@ public class FilesMetadataServiceImpl implements FilesMetadataService {
         newFile.setConfirmed(false);
         newFile.setMarkedToConfirm(false);
         newFile.setCreationDate(new Date());
-        try {
-            newFile.setContentType(getContentType(formData.getFile().getBytes()));
-        } catch (IOException e) {
-            log.error("Input/output exception occurred during getBytes method", e);
-            throw new RuntimeException(e);
+        UploadedContent content = uploadContent(formData);
+        String mediaType = content.getMediaType();
+        Optional<ContentType> contentType = ContentType.fromName(mediaType);
+        if (!contentType.isPresent()) {
+            uploadPipeline.discard(content);
+            throw new UnknownContentType(mediaType);
         }
+        newFile.setContentType(contentType.get());
         newFile = fileMetadataRepository.save(newFile);
 
-        Version initVersion = versionService.createInitVersionOfFile(formData, newFile);
+        Version initVersion = versionService.createInitVersionOfFile(formData, newFile, content);
 
         newFile.setLatestVersion(initVersion);
         newFile.setNumberOfVersions(1);
@@ -98,11 +108,104 @@ public class FilesMetadataServiceImpl implements FilesMetadataService {
         return newFile.getId();
     }
 
+    @Override
+    @Transactional(rollbackFor = ResourceNotFoundException.class)
+    public List<ImportedFileDTO> importFilesFromArchive(MultipartFile archive, String versionString,
+                                                        ObjectId projectId, ObjectId taskId)
+            throws ResourceNotFoundException {
+        Task task = taskRepository.findById(taskId)
+                .orElseThrow(() -> new TaskNotFoundException(taskId.toString()));
+        List<ImportedEntry> importedEntries;
+        try {
+            importedEntries = archiveImporter.importEntries(archive);
+        } catch (IOException e) {
+            log.error("Input/output exception occurred during importing archive", e);
+            throw new RuntimeException(e);
+        }
+
+        Map<FileMetadata, UploadedContent> contentsOfFiles = new LinkedHashMap<>();
+        List<ImportedFileDTO> importedFiles = new ArrayList<>(importedEntries.size());
+        for (ImportedEntry entry : importedEntries) {
+            if (!entry.isStored()) {
+                importedFiles.add(new ImportedFileDTO(entry.getName(), null, entry.getError()));
+                continue;
+            }
+            FileMetadata newFile = new FileMetadata();
+            newFile.setId(new ObjectId());
+            newFile.setTask(task);
+            newFile.setName(getFileName(entry));
+            newFile.setContentType(entry.getContentType());
+            newFile.setConfirmed(false);
+            newFile.setMarkedToConfirm(false);
+            newFile.setCreationDate(new Date());
+            newFile.setNumberOfVersions(1);
+            contentsOfFiles.put(newFile, entry.getContent());
+            importedFiles.add(new ImportedFileDTO(entry.getName(), newFile.getId().toString(), null));
+        }
+        if (contentsOfFiles.isEmpty()) {
+            return importedFiles;
+        }
+
+        List<Version> initVersions = versionService.createInitVersionsOfFiles(contentsOfFiles, versionString);
+        initVersions.forEach(version -> version.getFile().setLatestVersion(version));
+        List<FileMetadata> newFiles;
+        try {
+            newFiles = fileMetadataRepository.insert(contentsOfFiles.keySet());
+        } catch (RuntimeException e) {
+            releaseContents(contentsOfFiles.values());
+            throw e;
+        }
+        try {
+            versionService.insertInitVersions(initVersions);
+        } catch (RuntimeException e) {
+            fileMetadataRepository.deleteAll(newFiles);
+            releaseContents(contentsOfFiles.values());
+            throw e;
+        }
+
+        applicationEventPublisher.publishEvent(new FilesImportedEvent(this, task, newFiles));
+
+        return importedFiles;
+    }
+
+    /**
+     * Releases contents stored for files, which could not be saved. There are no transactions, so files and versions
+     * are saved in order, in which no version refers to missing file.
+     */
+    private void releaseContents(Collection<UploadedContent> contents) {
+        contents.forEach(content -> contentStorageService.release(content.getCheckSum()));
+    }
+
+    /**
+     * Returns name of entry without directories and extension, which is added according to content type.
+     */
+    private static String getFileName(ImportedEntry entry) {
+        String name = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+        int extensionStart = name.lastIndexOf('.');
+        if (extensionStart > 0) {
+            name = name.substring(0, extensionStart);
+        }
+        return name.length() > MAX_NAME_LENGTH ? name.substring(0, MAX_NAME_LENGTH) : name;
+    }
+
+    private UploadedContent uploadContent(NewFileForm formData) throws UnknownContentType {
+        try {
+            if (uploadPipeline.sniffContentTypes(formData.getFile()).isEmpty()) {
+                throw new UnknownContentType(formData.getFile().getContentType());
+            }
+            return uploadPipeline.process(formData.getFile(), null,
+                    ContentType.fromName(formData.getFile().getContentType()).orElse(null));
+        } catch (IOException e) {
+            log.error("Input/output exception occurred during processing uploaded file", e);
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     @Transactional(readOnly = true)
     public FileMetadataDTO getFileMetadataDTO(ObjectId fileId) throws FileNotFoundException {
         FileMetadata fileMetadata = getFileMetadata(fileId);
-        List<Version> versions = versionRepository.findByFile(fileMetadata);
+        List<Version> versions = versionRepository.findMetadataByFileId(fileId);
         return FileMetadataDTO.fromFileMetadataAndVersions(fileMetadata, versions);
     }
 
@@ -119,18 +222,6 @@ public class FilesMetadataServiceImpl implements FilesMetadataService {
         fileMetadataRepository.save(file);
     }
 
-    @Override
-    @Transactional(readOnly = true)
-    public boolean hasContentTypeAs(ObjectId fileId, byte[] file) throws FileNotFoundException {
-        try {
-            FileMetadata fileMetadata = getFileMetadata(fileId);
-            return getContentType(file).equals(fileMetadata.getContentType());
-        } catch (UnknownContentType e) {
-            log.error(e.getLocalizedMessage(), e);
-            return false;
-        }
-    }
-
     @Override
     @Transactional(rollbackFor = FileNotFoundException.class)
     public void confirmFile(ObjectId fileId) throws FileNotFoundException {
@@ -144,7 +235,7 @@ public class FilesMetadataServiceImpl implements FilesMetadataService {
     public void deleteFile(ObjectId fileId) throws FileNotFoundException {
         FileMetadata fileToDelete = fileMetadataRepository.findById(fileId)
                 .orElseThrow(() -> new FileNotFoundException(fileId.toString()));
-        versionRepository.deleteByFile(fileToDelete);
+        versionService.deleteVersionsOfFiles(Collections.singletonList(fileToDelete));
         fileMetadataRepository.delete(fileToDelete);
 
         applicationEventPublisher.publishEvent(new FileDeletedEvent(this, fileToDelete));
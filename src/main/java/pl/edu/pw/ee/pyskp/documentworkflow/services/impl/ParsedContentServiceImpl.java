@@ -0,0 +1,293 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.StorageConfig;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ContentType;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ParsedContentChunk;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.StorageTier;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Version;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.ParsedContentChunkRepository;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.VersionRepository;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.ColdBlobStore;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.CompressionCodec;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.JoinedLines;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.ParsedContentService;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.ParsedContentWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class ParsedContentServiceImpl implements ParsedContentService {
+    private static final String ID = "id";
+    private static final String PARSED_FILE_CONTENT = "parsedFileContent";
+    private static final String COMPRESSED_PARSED_FILE_CONTENT = "compressedParsedFileContent";
+    private static final String PARSED_FILE_CONTENT_CODEC = "parsedFileContentCodec";
+    private static final String LINE_COUNT = "lineCount";
+    private static final String CHUNK_SIZE = "chunkSize";
+    private static final String TIER = "tier";
+    private static final String COLD_BLOB_ID = "coldParsedFileContentBlobId";
+    private static final String LAST_ACCESS_DATE = "lastAccessDate";
+    private static final String TIER_READS_METRIC = "dws.storage.tier.reads";
+
+    @NonNull
+    private final StorageConfig storageConfig;
+
+    @NonNull
+    private final MongoOperations mongoOperations;
+
+    @NonNull
+    private final ParsedContentChunkRepository parsedContentChunkRepository;
+
+    @NonNull
+    private final VersionRepository versionRepository;
+
+    @NonNull
+    private final ColdBlobStore coldBlobStore;
+
+    @NonNull
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public void saveParsedFileContent(Version version, List<String> lines, ContentType contentType) {
+        ParsedContentWriter writer = openParsedContentWriter(version, contentType);
+        lines.forEach(writer);
+        writer.finish();
+    }
+
+    @Override
+    public ParsedContentWriter openParsedContentWriter(Version version, ContentType contentType) {
+        return new ChunkWriter(version, storageConfig.getCompression().getParsedContentCodec(contentType),
+                storageConfig.getParsedContent().getChunkSize(), true);
+    }
+
+    /**
+     * Writes chunks of version as soon as they are filled, replacing existing chunks with the same indexes.
+     */
+    @RequiredArgsConstructor
+    private class ChunkWriter implements ParsedContentWriter {
+        private final Version version;
+        private final CompressionCodec codec;
+        private final int chunkSize;
+        private final boolean updateLineCount;
+        private final List<String> chunkLines = new ArrayList<>();
+        private int chunkIndex;
+        private int lineCount;
+
+        @Override
+        public void accept(String line) {
+            chunkLines.add(line);
+            lineCount++;
+            if (chunkLines.size() == chunkSize) {
+                writeChunk();
+            }
+        }
+
+        @Override
+        public int finish() {
+            if (!chunkLines.isEmpty()) {
+                writeChunk();
+            }
+            if (updateLineCount) {
+                mongoOperations.updateFirst(
+                        query(where(ID).is(version.getId())),
+                        new Update().set(LINE_COUNT, lineCount).set(CHUNK_SIZE, chunkSize),
+                        Version.class
+                );
+                version.setLineCount(lineCount);
+                version.setChunkSize(chunkSize);
+            }
+            return lineCount;
+        }
+
+        private void writeChunk() {
+            Update update = new Update().set("fileId", version.getFile().getId());
+            if (codec == CompressionCodec.NONE) {
+                update.set("lines", chunkLines).unset("compressedLines").unset("codec");
+            } else {
+                update.set("compressedLines", compress(codec, chunkLines)).set("codec", codec).unset("lines");
+            }
+            mongoOperations.upsert(
+                    query(where("versionId").is(version.getId()).and("chunkIndex").is(chunkIndex)),
+                    update, ParsedContentChunk.class);
+            chunkLines.clear();
+            chunkIndex++;
+        }
+    }
+
+    @Override
+    public List<String> getParsedFileContent(Version version) {
+        return getParsedFileContentLines(version, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<String> getParsedFileContentLines(Version version, int from, int to) {
+        if (from < 0 || to < from) {
+            throw new IllegalArgumentException("Invalid range of lines: [" + from + ", " + to + ")");
+        }
+        StorageTier tier = StorageTier.orHot(version.getTier());
+        meterRegistry.counter(TIER_READS_METRIC, "data", "parsed", "tier", tier.name().toLowerCase()).increment();
+        try {
+            if (tier == StorageTier.COLD) {
+                List<String> lines = promote(version);
+                return lines.subList(Math.min(from, lines.size()), Math.min(to, lines.size()));
+            }
+            return readHotLines(version, from, to);
+        } catch (IOException e) {
+            log.error("Parsed content of version " + version.getId() + " could not be read", e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private List<String> readHotLines(Version version, int from, int to) throws IOException {
+        if (version.getChunkSize() == null) {
+            List<String> lines = readInlineLines(version);
+            return lines.subList(Math.min(from, lines.size()), Math.min(to, lines.size()));
+        }
+        int lineCount = version.getLineCount();
+        int chunkSize = version.getChunkSize();
+        from = Math.min(from, lineCount);
+        to = Math.min(to, lineCount);
+        if (from >= to) {
+            return Collections.emptyList();
+        }
+        List<ParsedContentChunk> chunks = from == 0 && to == lineCount
+                ? parsedContentChunkRepository.findByVersionIdOrderByChunkIndex(version.getId())
+                : parsedContentChunkRepository.findByVersionIdAndChunkIndexInRange(version.getId(),
+                from / chunkSize, (to - 1) / chunkSize);
+        chunks.sort(Comparator.comparingInt(ParsedContentChunk::getChunkIndex));
+        List<String> lines = new ArrayList<>(to - from);
+        for (ParsedContentChunk chunk : chunks) {
+            int chunkStart = chunk.getChunkIndex() * chunkSize;
+            List<String> chunkLines = readChunkLines(chunk, Math.min(chunkSize, lineCount - chunkStart));
+            int fromInChunk = Math.max(from - chunkStart, 0);
+            int toInChunk = Math.min(to - chunkStart, chunkLines.size());
+            lines.addAll(chunkLines.subList(fromInChunk, toInChunk));
+        }
+        return lines;
+    }
+
+    private static List<String> readChunkLines(ParsedContentChunk chunk, int lineCount) throws IOException {
+        if (chunk.getCompressedLines() == null) {
+            return chunk.getLines();
+        }
+        return JoinedLines.split(chunk.getCodec().decompress(chunk.getCompressedLines()), lineCount);
+    }
+
+    private List<String> readInlineLines(Version version) throws IOException {
+        if (version.getParsedFileContent() == null && version.getCompressedParsedFileContent() == null) {
+            version = versionRepository.findById(version.getId()).orElse(version);
+        }
+        if (version.getCompressedParsedFileContent() != null) {
+            byte[] compressedLines = version.getCompressedParsedFileContent();
+            return JoinedLines.split(version.getParsedFileContentCodec().decompress(compressedLines));
+        }
+        return version.getParsedFileContent() != null ? version.getParsedFileContent() : Collections.emptyList();
+    }
+
+    private List<String> promote(Version version) throws IOException {
+        String coldBlobId = version.getColdParsedFileContentBlobId();
+        List<String> lines;
+        try (InputStream cold = coldBlobStore.open(coldBlobId)) {
+            byte[] joinedLines = cold.readAllBytes();
+            lines = version.getLineCount() != null
+                    ? JoinedLines.split(joinedLines, version.getLineCount())
+                    : JoinedLines.split(joinedLines);
+        }
+        int chunkSize = storageConfig.getParsedContent().getChunkSize();
+        ChunkWriter writer = new ChunkWriter(version, storageConfig.getCompression()
+                .getParsedContentCodec(version.getFile().getContentType()), chunkSize, false);
+        lines.forEach(writer);
+        writer.finish();
+        boolean moved = mongoOperations.updateFirst(
+                query(where(ID).is(version.getId()).and(COLD_BLOB_ID).is(coldBlobId)),
+                new Update()
+                        .set(LINE_COUNT, lines.size())
+                        .set(CHUNK_SIZE, chunkSize)
+                        .unset(TIER)
+                        .unset(COLD_BLOB_ID)
+                        .set(LAST_ACCESS_DATE, new Date()),
+                Version.class
+        ).getModifiedCount() == 1;
+        if (moved) {
+            coldBlobStore.delete(coldBlobId);
+            version.setTier(null);
+            version.setColdParsedFileContentBlobId(null);
+            version.setLineCount(lines.size());
+            version.setChunkSize(chunkSize);
+            return lines;
+        }
+        Optional<Version> current = versionRepository.findById(version.getId());
+        if (current.isPresent() && current.get().getTier() != StorageTier.COLD) {
+            // promoted concurrently, written chunks are the same as the ones written by the other promotion
+            version.setTier(current.get().getTier());
+            version.setColdParsedFileContentBlobId(null);
+            version.setLineCount(current.get().getLineCount());
+            version.setChunkSize(current.get().getChunkSize());
+            return readHotLines(version, 0, Integer.MAX_VALUE);
+        }
+        parsedContentChunkRepository.deleteByVersionId(version.getId());
+        current.ifPresent(demoted -> version.setColdParsedFileContentBlobId(
+                demoted.getColdParsedFileContentBlobId()));
+        return lines;
+    }
+
+    @Override
+    public boolean moveToColdTier(Version version) throws IOException {
+        if (version.getTier() == StorageTier.COLD) {
+            return false;
+        }
+        List<String> lines = readHotLines(version, 0, Integer.MAX_VALUE);
+        String coldBlobId = coldBlobStore.store("parsed-" + version.getId(),
+                new ByteArrayInputStream(JoinedLines.join(lines)));
+        boolean moved = mongoOperations.updateFirst(
+                query(where(ID).is(version.getId()).and(TIER).ne(StorageTier.COLD)),
+                new Update()
+                        .set(TIER, StorageTier.COLD)
+                        .set(COLD_BLOB_ID, coldBlobId)
+                        .set(LINE_COUNT, lines.size())
+                        .unset(CHUNK_SIZE)
+                        .unset(PARSED_FILE_CONTENT)
+                        .unset(COMPRESSED_PARSED_FILE_CONTENT)
+                        .unset(PARSED_FILE_CONTENT_CODEC),
+                Version.class
+        ).getModifiedCount() == 1;
+        if (moved) {
+            parsedContentChunkRepository.deleteByVersionId(version.getId());
+        } else {
+            coldBlobStore.delete(coldBlobId);
+        }
+        return moved;
+    }
+
+    @Override
+    public void deleteParsedContentsOfFiles(Collection<ObjectId> fileIds) {
+        parsedContentChunkRepository.deleteByFileIdIn(fileIds);
+        versionRepository.findColdParsedContentsByFileIdIn(fileIds).stream()
+                .map(Version::getColdParsedFileContentBlobId)
+                .forEach(coldBlobStore::delete);
+    }
+
+    private static byte[] compress(CompressionCodec codec, List<String> lines) {
+        try {
+            return codec.compress(JoinedLines.join(lines));
+        } catch (IOException e) {
+            log.error("Parsed content could not be compressed", e);
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -19,6 +19,7 @@ import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.ProjectNotFoundException;
 import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.UserNotFoundException;
 import pl.edu.pw.ee.pyskp.documentworkflow.services.ProjectService;
 import pl.edu.pw.ee.pyskp.documentworkflow.services.UserService;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.VersionService;
 import pl.edu.pw.ee.pyskp.documentworkflow.services.events.*;
 
 import java.util.Date;
@@ -50,7 +51,7 @@ public class ProjectServiceImpl implements ProjectService {
     private final FileMetadataRepository fileMetadataRepository;
 
     @NonNull
-    private final VersionRepository versionRepository;
+    private final VersionService versionService;
 
     @NonNull
     private final UserRepository userRepository;
@@ -101,7 +102,7 @@ public class ProjectServiceImpl implements ProjectService {
 
         List<FileMetadata> files = fileMetadataRepository.findByTaskIn(tasks);
 
-        versionRepository.deleteByFileIn(files);
+        versionService.deleteVersionsOfFiles(files);
         fileMetadataRepository.deleteAll(files);
         taskRepository.deleteAll(tasks);
         projectRepository.delete(project);
@@ -142,6 +143,18 @@ public class ProjectServiceImpl implements ProjectService {
         projectRepository.save(project);
     }
 
+    @Override
+    @Transactional
+    @EventListener
+    @Order(2)
+    public void processFilesImportedEvent(FilesImportedEvent event) {
+        Project project = event.getTask().getProject();
+        List<FileMetadata> importedFiles = event.getImportedFiles();
+        project.setLastModifiedFile(importedFiles.get(importedFiles.size() - 1));
+        project.setNumberOfFiles(project.getNumberOfFiles() + importedFiles.size());
+        projectRepository.save(project);
+    }
+
     @Override
     @Transactional
     @EventListener
@@ -15,7 +15,6 @@ import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.User;
 import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.FileMetadataRepository;
 import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.ProjectRepository;
 import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.TaskRepository;
-import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.VersionRepository;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.task.NewTaskForm;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.task.TaskInfoDTO;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.user.UserInfoDTO;
@@ -24,6 +23,7 @@ import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.ResourceNotFoundException;
 import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.TaskNotFoundException;
 import pl.edu.pw.ee.pyskp.documentworkflow.services.TaskService;
 import pl.edu.pw.ee.pyskp.documentworkflow.services.UserService;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.VersionService;
 import pl.edu.pw.ee.pyskp.documentworkflow.services.events.*;
 
 import java.util.*;
@@ -49,7 +49,7 @@ public class TaskServiceImpl implements TaskService {
     private final FileMetadataRepository fileMetadataRepository;
 
     @NonNull
-    private final VersionRepository versionRepository;
+    private final VersionService versionService;
 
     @NonNull
     private final ApplicationEventPublisher applicationEventPublisher;
@@ -94,7 +94,7 @@ public class TaskServiceImpl implements TaskService {
     public void deleteTask(ObjectId taskId) throws TaskNotFoundException {
         Task taskToDelete = getTask(taskId);
         List<FileMetadata> taskFiles = fileMetadataRepository.findByTask(taskToDelete).collect(Collectors.toList());
-        versionRepository.deleteByFileIn(taskFiles);
+        versionService.deleteVersionsOfFiles(taskFiles);
         fileMetadataRepository.deleteByTask_Id(taskId);
         taskRepository.delete(taskToDelete);
 
@@ -175,6 +175,18 @@ public class TaskServiceImpl implements TaskService {
         taskRepository.save(task);
     }
 
+    @Override
+    @Transactional
+    @EventListener
+    @Order(1)
+    public void processFilesImportedEvent(FilesImportedEvent event) {
+        Task task = event.getTask();
+        List<FileMetadata> importedFiles = event.getImportedFiles();
+        task.setLastModifiedFile(importedFiles.get(importedFiles.size() - 1));
+        task.setNumberOfFiles(task.getNumberOfFiles() + importedFiles.size());
+        taskRepository.save(task);
+    }
+
     @Override
     @Transactional
     @EventListener
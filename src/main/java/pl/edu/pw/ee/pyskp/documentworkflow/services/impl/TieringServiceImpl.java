@@ -0,0 +1,121 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.impl;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.StorageConfig;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ContentBlob;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.StorageTier;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Version;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.VersionRepository;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.ContentStorageService;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.ParsedContentService;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.TieringService;
+
+import java.io.IOException;
+import java.util.Date;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class TieringServiceImpl implements TieringService {
+    private static final String TIER = "tier";
+    private static final String LAST_ACCESS_DATE = "lastAccessDate";
+
+    @NonNull
+    private final StorageConfig storageConfig;
+
+    @NonNull
+    private final MongoOperations mongoOperations;
+
+    @NonNull
+    private final VersionRepository versionRepository;
+
+    @NonNull
+    private final ParsedContentService parsedContentService;
+
+    @NonNull
+    private final ContentStorageService contentStorageService;
+
+    @Scheduled(cron = "${dws.storage.tiering.demotion-cron}")
+    public void scheduledDemotion() {
+        if (storageConfig.getTiering().isEnabled()) {
+            demoteInactiveData();
+        }
+    }
+
+    @Override
+    public void demoteInactiveData() {
+        Date cutoff = new Date(System.currentTimeMillis() - storageConfig.getTiering().getMinAge().toMillis());
+        log.info("Demoted parsed contents of {} versions", demoteVersions(cutoff));
+        log.info("Demoted {} contents", demoteContents(cutoff));
+    }
+
+    private long demoteVersions(Date cutoff) {
+        Query inactiveVersions = query(inactiveSince(cutoff).and("saveDate").lt(cutoff));
+        inactiveVersions.fields()
+                .include("id").include("file").include("saveDate").include("tier").include("chunkSize")
+                .include("lineCount");
+        long demoted = 0;
+        try (CloseableIterator<Version> versions = mongoOperations.stream(inactiveVersions, Version.class)) {
+            while (versions.hasNext()) {
+                Version version = versions.next();
+                long newerVersions = versionRepository
+                        .countByFile_IdAndSaveDateGreaterThan(version.getFile().getId(), version.getSaveDate());
+                if (newerVersions >= storageConfig.getTiering().getKeepLatest() && demote(version)) {
+                    demoted++;
+                }
+            }
+        }
+        return demoted;
+    }
+
+    private boolean demote(Version version) {
+        try {
+            return parsedContentService.moveToColdTier(version);
+        } catch (IOException e) {
+            log.error("Parsed content of version " + version.getId() + " could not be moved to cold tier", e);
+            return false;
+        }
+    }
+
+    private long demoteContents(Date cutoff) {
+        Query inactiveContents = query(inactiveSince(cutoff));
+        inactiveContents.fields().include("checkSum");
+        long demoted = 0;
+        try (CloseableIterator<ContentBlob> contents = mongoOperations.stream(inactiveContents, ContentBlob.class)) {
+            while (contents.hasNext()) {
+                String checkSum = contents.next().getCheckSum();
+                if (!versionRepository.existsByCheckSumAndTierNot(checkSum, StorageTier.COLD) && demote(checkSum)) {
+                    demoted++;
+                }
+            }
+        }
+        return demoted;
+    }
+
+    private boolean demote(String checkSum) {
+        try {
+            return contentStorageService.moveToColdTier(checkSum);
+        } catch (IOException e) {
+            log.error("Content " + checkSum + " could not be moved to cold tier", e);
+            return false;
+        }
+    }
+
+    private static Criteria inactiveSince(Date cutoff) {
+        return where(TIER).ne(StorageTier.COLD).orOperator(
+                where(LAST_ACCESS_DATE).exists(false),
+                where(LAST_ACCESS_DATE).lt(cutoff)
+        );
+    }
+}
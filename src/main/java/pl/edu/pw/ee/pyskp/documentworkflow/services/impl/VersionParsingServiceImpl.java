@@ -0,0 +1,243 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.DiffConfig;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.ParsingConfig;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Difference;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ParseStatus;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Version;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.VersionRepository;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.ContentStorageService;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.DifferenceService;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.ParsedContentService;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.ParsedContentWriter;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.TikaService;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.VersionParsingService;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.DiffResult;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.extraction.ExtractionCache;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class VersionParsingServiceImpl implements VersionParsingService {
+    @NonNull
+    private final ParsingConfig parsingConfig;
+
+    @NonNull
+    private final DiffConfig diffConfig;
+
+    @NonNull
+    private final VersionRepository versionRepository;
+
+    @NonNull
+    private final MongoOperations mongoOperations;
+
+    @NonNull
+    private final ContentStorageService contentStorageService;
+
+    @NonNull
+    private final TikaService tikaService;
+
+    @NonNull
+    private final ParsedContentService parsedContentService;
+
+    @NonNull
+    private final DifferenceService differenceService;
+
+    @NonNull
+    private final ExtractionCache extractionCache;
+
+    @NonNull
+    private final MeterRegistry meterRegistry;
+
+    private final Set<ObjectId> queuedVersions = ConcurrentHashMap.newKeySet();
+    private ThreadPoolExecutor executor;
+    private ThreadPoolExecutor refinementExecutor;
+    private Timer queueWaitTimer;
+    private Timer parsingTimer;
+
+    @PostConstruct
+    public void startExecutor() {
+        executor = new ThreadPoolExecutor(parsingConfig.getThreads(), parsingConfig.getThreads(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(parsingConfig.getQueueCapacity()),
+                new CustomizableThreadFactory("version-parser-"));
+        meterRegistry.gauge("dws.parsing.queue.depth", executor, pool -> pool.getQueue().size());
+        meterRegistry.gauge("dws.parsing.active", executor, ThreadPoolExecutor::getActiveCount);
+        queueWaitTimer = meterRegistry.timer("dws.parsing.queue.wait");
+        parsingTimer = meterRegistry.timer("dws.parsing.duration");
+        refinementExecutor = new ThreadPoolExecutor(1, 1,
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(parsingConfig.getQueueCapacity()),
+                new CustomizableThreadFactory("diff-refiner-"));
+    }
+
+    @PreDestroy
+    public void stopExecutor() {
+        executor.shutdownNow();
+        refinementExecutor.shutdownNow();
+    }
+
+    @Override
+    public void schedule(ObjectId versionId) {
+        if (!queuedVersions.add(versionId)) {
+            return;
+        }
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                queueWaitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    parsingTimer.record(() -> parse(versionId));
+                } finally {
+                    queuedVersions.remove(versionId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queuedVersions.remove(versionId);
+            log.warn("Parsing queue is full, version {} will be queued again later", versionId);
+        }
+    }
+
+    @Scheduled(cron = "${dws.parsing.pending-sweep-cron}")
+    public void queuePendingVersions() {
+        Date savedBefore = new Date(System.currentTimeMillis() - parsingConfig.getRetryDelay().toMillis());
+        versionRepository.findPendingSavedBefore(savedBefore, Sort.by("saveDate")).stream()
+                .map(Version::getId)
+                .forEach(this::schedule);
+    }
+
+    private void parse(ObjectId versionId) {
+        Optional<Version> found = versionRepository.findById(versionId);
+        if (!found.isPresent() || found.get().getParseStatus() != ParseStatus.PENDING) {
+            return;
+        }
+        Version version = found.get();
+        ObjectId fileId = version.getFile().getId();
+        Optional<Version> previousVersion = versionRepository
+                .findTopByFile_IdAndSaveDateLessThanOrderBySaveDateDesc(fileId, version.getSaveDate());
+        if (previousVersion.isPresent() && previousVersion.get().getParseStatus() == ParseStatus.PENDING) {
+            log.debug("Version {} waits for parsing of previous version", versionId);
+            return;
+        }
+        try {
+            ParsedContentWriter writer = parsedContentService
+                    .openParsedContentWriter(version, version.getFile().getContentType());
+            DiffResult diffResult;
+            if (previousVersion.isPresent()) {
+                List<String> lines = new ArrayList<>();
+                extractLines(version, writer.andThen(lines::add));
+                writer.finish();
+                diffResult = differenceService
+                        .getDifferencesWithinBudget(getParsedFileContent(previousVersion.get()), lines);
+            } else {
+                extractLines(version, writer);
+                diffResult = new DiffResult(differenceService.createDifferencesForNewFile(writer.finish()), false);
+            }
+            finish(versionId, ParseStatus.READY, diffResult);
+            if (diffResult.isApproximate() && diffConfig.getRefinement().isEnabled()) {
+                scheduleRefinement(versionId, previousVersion.get());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Version " + versionId + " could not be parsed", e);
+            finish(versionId, ParseStatus.FAILED, new DiffResult(Collections.emptyList(), false));
+        }
+        versionRepository.findTopByFile_IdAndSaveDateGreaterThanOrderBySaveDate(fileId, version.getSaveDate())
+                .filter(nextVersion -> nextVersion.getParseStatus() == ParseStatus.PENDING)
+                .ifPresent(nextVersion -> schedule(nextVersion.getId()));
+    }
+
+    private void scheduleRefinement(ObjectId versionId, Version previousVersion) {
+        try {
+            refinementExecutor.execute(() -> refineDifferences(versionId, previousVersion));
+        } catch (RejectedExecutionException e) {
+            log.warn("Refinement queue is full, differences of version {} stay approximate", versionId);
+        }
+    }
+
+    /**
+     * Replaces approximate differences of version by exact ones, computed from its stored parsed content.
+     */
+    private void refineDifferences(ObjectId versionId, Version previousVersion) {
+        Optional<Version> version = versionRepository.findById(versionId)
+                .filter(Version::isApproximateDifferences);
+        if (!version.isPresent()) {
+            return;
+        }
+        try {
+            Optional<List<Difference>> differences = differenceService.refineDifferences(
+                    getParsedFileContent(previousVersion), parsedContentService.getParsedFileContent(version.get()));
+            differences.ifPresent(exactDifferences -> mongoOperations.updateFirst(
+                    query(where("id").is(versionId).and("approximateDifferences").is(true)),
+                    new Update().set("differences", exactDifferences).set("approximateDifferences", false),
+                    Version.class
+            ));
+        } catch (RuntimeException e) {
+            log.error("Differences of version " + versionId + " could not be refined", e);
+        }
+    }
+
+    /**
+     * Passes lines of version content to consumer as they are extracted, without keeping them.
+     */
+    private void extractLines(Version version, Consumer<String> lineConsumer) throws IOException {
+        Optional<List<String>> cachedLines = extractionCache.get(version.getCheckSum());
+        if (cachedLines.isPresent()) {
+            cachedLines.get().forEach(lineConsumer);
+            return;
+        }
+        ExtractionCache.Writer cacheWriter = extractionCache.openWriter(version.getCheckSum());
+        try (InputStream content = contentStorageService.open(version.getCheckSum())) {
+            tikaService.extractLines(TikaInputStream.get(content), new Metadata(), lineConsumer.andThen(cacheWriter));
+        }
+        cacheWriter.commit();
+    }
+
+    /**
+     * Returns lines of previous version. Versions, which could not be parsed, are treated as empty.
+     */
+    private List<String> getParsedFileContent(Version previousVersion) {
+        if (previousVersion.getParseStatus() == ParseStatus.FAILED) {
+            return Collections.emptyList();
+        }
+        return parsedContentService.getParsedFileContent(previousVersion);
+    }
+
+    private void finish(ObjectId versionId, ParseStatus status, DiffResult diffResult) {
+        mongoOperations.updateFirst(
+                query(where("id").is(versionId).and("parseStatus").is(ParseStatus.PENDING)),
+                new Update().set("parseStatus", status)
+                        .set("differences", diffResult.getDifferences())
+                        .set("approximateDifferences", diffResult.isApproximate()),
+                Version.class
+        );
+        meterRegistry.counter("dws.parsing.finished", "status", status.name().toLowerCase()).increment();
+    }
+}
@@ -3,39 +3,71 @@ package pl.edu.pw.ee.pyskp.documentworkflow.services.impl;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.tika.io.TikaInputStream;
 import org.bson.types.ObjectId;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.DiffConfig;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ContentType;
 import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Difference;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.DifferenceType;
 import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.FileMetadata;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ParseStatus;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.User;
 import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Version;
 import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.FileMetadataRepository;
 import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.VersionRepository;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.file.FileContentDTO;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.file.NewFileForm;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.version.DiffData;
+import pl.edu.pw.ee.pyskp.documentworkflow.dtos.version.DiffHunkDTO;
+import pl.edu.pw.ee.pyskp.documentworkflow.dtos.version.DiffHunksDTO;
+import pl.edu.pw.ee.pyskp.documentworkflow.dtos.version.InlineDiffDTO;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.version.NewVersionForm;
 import pl.edu.pw.ee.pyskp.documentworkflow.dtos.version.VersionInfoDTO;
 import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.FileNotFoundException;
 import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.ResourceNotFoundException;
+import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.UnexpectedContentType;
 import pl.edu.pw.ee.pyskp.documentworkflow.exceptions.VersionNotFoundException;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.ContentStorageService;
 import pl.edu.pw.ee.pyskp.documentworkflow.services.DifferenceService;
-import pl.edu.pw.ee.pyskp.documentworkflow.services.TikaService;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.ParsedContentService;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.VersionParsingService;
 import pl.edu.pw.ee.pyskp.documentworkflow.services.UserService;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.VersionContent;
 import pl.edu.pw.ee.pyskp.documentworkflow.services.VersionService;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.DiffBudget;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.DiffCache;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.DiffResult;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.Hunk;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.IntraLineDiff;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.IntraLineGranularity;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.LineChange;
 import pl.edu.pw.ee.pyskp.documentworkflow.services.events.VersionCreatedEvent;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.upload.UploadPipeline;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.upload.UploadedContent;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.math.BigInteger;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
 
 /**
  * Created by piotr on 06.01.17.
@@ -49,9 +81,6 @@ public class VersionServiceImpl implements VersionService {
     @NonNull
     private final UserService userService;
 
-    @NonNull
-    private final DifferenceService differenceService;
-
     @NonNull
     private final VersionRepository versionRepository;
 
@@ -62,62 +91,95 @@ public class VersionServiceImpl implements VersionService {
     private final ApplicationEventPublisher applicationEventPublisher;
 
     @NonNull
-    private final TikaService tikaService;
+    private final ContentStorageService contentStorageService;
 
-    private final MessageDigest sha256 = initializeSHA256();
+    @NonNull
+    private final UploadPipeline uploadPipeline;
 
-    private MessageDigest initializeSHA256() {
-        try {
-            return MessageDigest.getInstance("SHA-256");
-        } catch (NoSuchAlgorithmException e) {
-            log.error(e.getMessage(), e);
-            throw new RuntimeException(e);
-        }
-    }
+    @NonNull
+    private final ParsedContentService parsedContentService;
 
-    private String calculateCheckSum(byte[] bytes) {
-        return String.format("%064x", new BigInteger(sha256.digest(bytes)));
-    }
+    @NonNull
+    private final VersionParsingService versionParsingService;
+
+    @NonNull
+    private final MongoOperations mongoOperations;
+
+    @NonNull
+    private final DifferenceService differenceService;
+
+    @NonNull
+    private final DiffCache diffCache;
+
+    @NonNull
+    private final DiffConfig diffConfig;
 
     @Override
     @Transactional
-    public Version createInitVersionOfFile(NewFileForm form, FileMetadata fileMetadata) {
-        try {
+    public Version createInitVersionOfFile(NewFileForm form, FileMetadata fileMetadata, UploadedContent content) {
+        Version version = new Version();
+        version.setFile(fileMetadata);
+        version.setSaveDate(new Date());
+        version.setVersionString(form.getVersionString());
+        version.setMessage(DEFAULT_MESSAGE);
+        version.setAuthor(userService.getCurrentUser());
+        version.setCheckSum(content.getCheckSum());
+        version.setParseStatus(ParseStatus.PENDING);
+        version.setDifferences(Collections.emptyList());
+        version = versionRepository.save(version);
+
+        versionParsingService.schedule(version.getId());
+        return version;
+    }
+
+    @Override
+    public List<Version> createInitVersionsOfFiles(Map<FileMetadata, UploadedContent> contentsOfFiles,
+                                                   String versionString) {
+        User author = userService.getCurrentUser();
+        List<Version> versions = new ArrayList<>(contentsOfFiles.size());
+        contentsOfFiles.forEach((fileMetadata, content) -> {
             Version version = new Version();
+            version.setId(new ObjectId());
             version.setFile(fileMetadata);
             version.setSaveDate(new Date());
-            version.setVersionString(form.getVersionString());
+            version.setVersionString(versionString);
             version.setMessage(DEFAULT_MESSAGE);
-            version.setAuthor(userService.getCurrentUser());
-            MultipartFile file = form.getFile();
-            byte[] bytes = file.getBytes();
-            version.setFileContent(bytes);
-
-            List<String> parsedContentLines = tikaService.extractLines(TikaInputStream.get(bytes));
-            version.setParsedFileContent(parsedContentLines);
-
-            version.setCheckSum(calculateCheckSum(bytes));
+            version.setAuthor(author);
+            version.setCheckSum(content.getCheckSum());
+            version.setParseStatus(ParseStatus.PENDING);
+            version.setDifferences(Collections.emptyList());
+            versions.add(version);
+        });
+        return versions;
+    }
 
-            List<Difference> differences = differenceService.createDifferencesForNewFile(parsedContentLines);
-            version.setDifferences(differences);
-            return versionRepository.save(version);
-        } catch (IOException e) {
-            log.error("Input/output exception during getBytes from multipartFile", e);
-            throw new RuntimeException(e);
-        }
+    @Override
+    @Transactional
+    public void insertInitVersions(List<Version> versions) {
+        versionRepository.insert(versions);
+        versions.forEach(version -> versionParsingService.schedule(version.getId()));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public InputStream getVersionFileContent(ObjectId fileId, Date saveDate) throws VersionNotFoundException {
+    public VersionContent getVersionContent(ObjectId fileId, Date saveDate) throws VersionNotFoundException {
         Version version = versionRepository.findOneByFile_IdAndSaveDate(fileId, saveDate)
                 .orElseThrow(() -> new VersionNotFoundException(String.valueOf(saveDate.getTime())));
-        return new ByteArrayInputStream(version.getFileContent());
+        if (version.getFileContent() != null) {
+            return new VersionContent(version.getCheckSum(), saveDate, new ByteArrayResource(version.getFileContent()));
+        }
+        try {
+            return new VersionContent(version.getCheckSum(), saveDate,
+                    contentStorageService.getResource(version.getCheckSum()));
+        } catch (IOException e) {
+            log.error("Content of version " + version.getId() + " could not be found", e);
+            throw new VersionNotFoundException(String.valueOf(saveDate.getTime()));
+        }
     }
 
     @Override
-    @Transactional(rollbackFor = ResourceNotFoundException.class)
-    public long addNewVersionOfFile(NewVersionForm form) throws ResourceNotFoundException {
+    @Transactional(rollbackFor = {ResourceNotFoundException.class, UnexpectedContentType.class})
+    public long addNewVersionOfFile(NewVersionForm form) throws ResourceNotFoundException, UnexpectedContentType {
         try {
             FileMetadata fileMetadata = getFileMetadata(form.getFileId());
             Version newVersion = new Version();
@@ -127,24 +189,30 @@ public class VersionServiceImpl implements VersionService {
             newVersion.setMessage(form.getMessage());
             newVersion.setAuthor(userService.getCurrentUser());
 
-            byte[] file = form.getFile().getBytes();
-            newVersion.setFileContent(file);
-
-            List<String> newVersionLines = tikaService.extractLines(TikaInputStream.get(file));
-            newVersion.setParsedFileContent(newVersionLines);
-
-            newVersion.setCheckSum(calculateCheckSum(file));
-
-            List<String> previousVersionLines = versionRepository.findTopByFileOrderBySaveDateDesc(fileMetadata)
-                    .map(Version::getParsedFileContent)
+            Version previousVersion = versionRepository.findTopByFileOrderBySaveDateDesc(fileMetadata)
                     .orElseThrow(VersionNotFoundException::new);
-            List<Difference> differences =
-                    differenceService.getDifferencesBetweenTwoFiles(previousVersionLines, newVersionLines);
-            newVersion.setDifferences(differences);
+
+            ContentType expectedContentType = fileMetadata.getContentType();
+            Set<ContentType> possibleContentTypes = uploadPipeline.sniffContentTypes(form.getFile());
+            if (!possibleContentTypes.contains(expectedContentType)) {
+                throw new UnexpectedContentType(expectedContentType.getName(), possibleContentTypes.isEmpty()
+                        ? form.getFile().getContentType()
+                        : possibleContentTypes.stream().map(ContentType::getName).collect(Collectors.joining(" or ")));
+            }
+            UploadedContent content = uploadPipeline
+                    .process(form.getFile(), previousVersion.getCheckSum(), expectedContentType);
+            if (!expectedContentType.getName().equals(content.getMediaType())) {
+                uploadPipeline.discard(content);
+                throw new UnexpectedContentType(expectedContentType.getName(), content.getMediaType());
+            }
+            newVersion.setCheckSum(content.getCheckSum());
+            newVersion.setParseStatus(ParseStatus.PENDING);
+            newVersion.setDifferences(Collections.emptyList());
 
             newVersion = versionRepository.save(newVersion);
 
             applicationEventPublisher.publishEvent(new VersionCreatedEvent(this, newVersion, fileMetadata));
+            versionParsingService.schedule(newVersion.getId());
 
             return newVersion.getSaveDate().getTime();
         } catch (IOException e) {
@@ -157,27 +225,207 @@ public class VersionServiceImpl implements VersionService {
     @Transactional(readOnly = true)
     public DiffData buildDiffData(ObjectId fileId, long versionSaveDateMillis) throws VersionNotFoundException {
         List<Version> last2Versions = versionRepository
-                .findByFile_IdAndSaveDateLessThanEqualOrderBySaveDateDesc(fileId, new Date(versionSaveDateMillis));
+                .findTop2ByFile_IdAndSaveDateLessThanEqualOrderBySaveDateDesc(fileId, new Date(versionSaveDateMillis));
         if (last2Versions.isEmpty())
             throw new VersionNotFoundException(String.valueOf(versionSaveDateMillis));
         Version currentVersion = last2Versions.get(0);
+        ParseStatus parseStatus = ParseStatus.orReady(currentVersion.getParseStatus());
+        if (parseStatus != ParseStatus.READY) {
+            return new DiffData(Collections.emptyList(), new FileContentDTO(Collections.emptyList()), null,
+                    parseStatus, false);
+        }
         FileContentDTO oldContent = null;
         if (last2Versions.size() != 1) {
             Version previousVersion = last2Versions.get(1);
-            oldContent = new FileContentDTO(previousVersion.getParsedFileContent());
+            if (ParseStatus.orReady(previousVersion.getParseStatus()) == ParseStatus.READY) {
+                oldContent = new FileContentDTO(parsedContentService.getParsedFileContent(previousVersion));
+            }
         }
         return new DiffData(
                 currentVersion.getDifferences(),
-                new FileContentDTO(currentVersion.getParsedFileContent()),
-                oldContent
+                new FileContentDTO(parsedContentService.getParsedFileContent(currentVersion)),
+                oldContent,
+                parseStatus,
+                currentVersion.isApproximateDifferences()
         );
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public DiffData buildDiffData(ObjectId fileId, long baseVersionSaveDateMillis, long versionSaveDateMillis)
+            throws VersionNotFoundException {
+        Version baseVersion = getVersion(fileId, baseVersionSaveDateMillis);
+        Version version = getVersion(fileId, versionSaveDateMillis);
+        ParseStatus parseStatus = getParseStatus(baseVersion, version);
+        if (parseStatus != ParseStatus.READY) {
+            return new DiffData(Collections.emptyList(), new FileContentDTO(Collections.emptyList()), null,
+                    parseStatus, false);
+        }
+        List<String> baseLines = parsedContentService.getParsedFileContent(baseVersion);
+        List<String> lines = parsedContentService.getParsedFileContent(version);
+        DiffResult differences = getDifferences(baseVersion, version, () -> baseLines, () -> lines);
+        return new DiffData(differences.getDifferences(), new FileContentDTO(lines), new FileContentDTO(baseLines),
+                parseStatus, differences.isApproximate());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public DiffHunksDTO getDiffHunks(ObjectId fileId, long versionSaveDateMillis, Long baseVersionSaveDateMillis,
+                                     int context, int cursor, int pageSize) throws VersionNotFoundException {
+        Version version = getVersion(fileId, versionSaveDateMillis);
+        Optional<Version> baseVersion = getBaseVersion(fileId, version, baseVersionSaveDateMillis);
+        ParseStatus parseStatus = baseVersion
+                .map(base -> getParseStatus(base, version))
+                .orElseGet(() -> getParseStatus(version));
+        if (parseStatus != ParseStatus.READY) {
+            return new DiffHunksDTO(Collections.emptyList(), null, null, null, parseStatus, false);
+        }
+        DiffResult differences = baseVersion
+                .map(base -> getDifferences(base, version, () -> parsedContentService.getParsedFileContent(base),
+                        () -> parsedContentService.getParsedFileContent(version)))
+                .orElseGet(() -> new DiffResult(version.getDifferences(), version.isApproximateDifferences()));
+
+        DiffConfig.Hunks hunksConfig = diffConfig.getHunks();
+        List<Hunk> hunks = Hunk.group(differences.getDifferences(), Math.min(context, hunksConfig.getMaxContext()));
+        int pageEnd = (int) Math.min((long) cursor + Math.min(pageSize, hunksConfig.getMaxPageSize()), hunks.size());
+        List<DiffHunkDTO> page = new ArrayList<>();
+        for (Hunk hunk : hunks.subList(Math.min(cursor, pageEnd), pageEnd)) {
+            List<String> oldLines = baseVersion
+                    .map(base -> parsedContentService
+                            .getParsedFileContentLines(base, hunk.getPreviousStart(), hunk.getPreviousEnd()))
+                    .orElse(Collections.emptyList());
+            List<String> newLines = parsedContentService
+                    .getParsedFileContentLines(version, hunk.getCurrentStart(), hunk.getCurrentEnd());
+            page.add(new DiffHunkDTO(hunk.getPreviousStart(), oldLines, hunk.getCurrentStart(), newLines,
+                    hunk.getDifferences()));
+        }
+        return new DiffHunksDTO(page, pageEnd < hunks.size() ? pageEnd : null,
+                baseVersion.isPresent() ? baseVersion.get().getLineCount() : Integer.valueOf(0),
+                version.getLineCount(), parseStatus, differences.isApproximate());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public InlineDiffDTO getInlineDiff(ObjectId fileId, long versionSaveDateMillis, Long baseVersionSaveDateMillis,
+                                       int context, int hunkIndex, IntraLineGranularity granularity)
+            throws VersionNotFoundException {
+        Version version = getVersion(fileId, versionSaveDateMillis);
+        Optional<Version> baseVersion = getBaseVersion(fileId, version, baseVersionSaveDateMillis);
+        if (!baseVersion.isPresent()) {
+            return new InlineDiffDTO(Collections.emptyList(), getParseStatus(version));
+        }
+        Version base = baseVersion.get();
+        ParseStatus parseStatus = getParseStatus(base, version);
+        if (parseStatus != ParseStatus.READY) {
+            return new InlineDiffDTO(Collections.emptyList(), parseStatus);
+        }
+        int hunksContext = Math.min(context, diffConfig.getHunks().getMaxContext());
+        List<LineChange> lineChanges = diffCache.getLineChanges(base.getId(), version.getId(), hunksContext,
+                hunkIndex, granularity, () -> {
+                    List<Difference> differences = getDifferences(base, version,
+                            () -> parsedContentService.getParsedFileContent(base),
+                            () -> parsedContentService.getParsedFileContent(version)).getDifferences();
+                    List<Hunk> hunks = Hunk.group(differences, hunksContext);
+                    if (hunkIndex >= hunks.size()) {
+                        return Collections.emptyList();
+                    }
+                    int maxLineLength = diffConfig.getIntraLine().getMaxLineLength();
+                    DiffBudget budget = newDiffBudget();
+                    List<LineChange> changes = new ArrayList<>();
+                    for (Difference difference : hunks.get(hunkIndex).getDifferences()) {
+                        if (difference.getDifferenceType() != DifferenceType.MODIFICATION) {
+                            continue;
+                        }
+                        List<String> previousLines = parsedContentService.getParsedFileContentLines(base,
+                                difference.getPreviousSectionStart(),
+                                difference.getPreviousSectionStart() + difference.getPreviousSectionSize());
+                        List<String> currentLines = parsedContentService.getParsedFileContentLines(version,
+                                difference.getNewSectionStart(),
+                                difference.getNewSectionStart() + difference.getNewSectionSize());
+                        changes.addAll(IntraLineDiff.diff(difference, previousLines, currentLines, granularity,
+                                maxLineLength, budget));
+                    }
+                    return changes;
+                });
+        return new InlineDiffDTO(lineChanges, parseStatus);
+    }
+
+    /**
+     * Returns given base version, or previous version if base is not given.
+     */
+    private Optional<Version> getBaseVersion(ObjectId fileId, Version version, Long baseVersionSaveDateMillis)
+            throws VersionNotFoundException {
+        if (baseVersionSaveDateMillis != null) {
+            return Optional.of(getVersion(fileId, baseVersionSaveDateMillis));
+        }
+        return versionRepository.findTopByFile_IdAndSaveDateLessThanOrderBySaveDateDesc(fileId, version.getSaveDate());
+    }
+
+    /**
+     * Returns differences between versions, computed when version was saved if base is its previous version, or
+     * cached. Lines of versions are read only if differences have to be computed, within the same budget as when
+     * version is parsed.
+     */
+    private DiffResult getDifferences(Version baseVersion, Version version,
+                                      Supplier<List<String>> baseLines, Supplier<List<String>> lines) {
+        if (isPreviousVersion(baseVersion, version)) {
+            return new DiffResult(version.getDifferences(), version.isApproximateDifferences());
+        }
+        return diffCache.get(baseVersion.getId(), version.getId(),
+                () -> differenceService.getDifferencesWithinBudget(baseLines.get(), lines.get()));
+    }
+
+    private DiffBudget newDiffBudget() {
+        DiffConfig.Budget budget = diffConfig.getBudget();
+        return new DiffBudget(budget.getMaxComparisons(), budget.getTimeout());
+    }
+
+    private Version getVersion(ObjectId fileId, long versionSaveDateMillis) throws VersionNotFoundException {
+        return versionRepository.findOneByFile_IdAndSaveDate(fileId, new Date(versionSaveDateMillis))
+                .orElseThrow(() -> new VersionNotFoundException(String.valueOf(versionSaveDateMillis)));
+    }
+
+    /**
+     * Returns status of the least parsed of versions.
+     */
+    private static ParseStatus getParseStatus(Version... versions) {
+        ParseStatus parseStatus = ParseStatus.READY;
+        for (Version version : versions) {
+            ParseStatus versionParseStatus = ParseStatus.orReady(version.getParseStatus());
+            if (versionParseStatus == ParseStatus.PENDING) {
+                return ParseStatus.PENDING;
+            }
+            if (versionParseStatus == ParseStatus.FAILED) {
+                parseStatus = ParseStatus.FAILED;
+            }
+        }
+        return parseStatus;
+    }
+
+    /**
+     * Checks if differences of version, computed when it was saved, are differences from given base version.
+     */
+    private boolean isPreviousVersion(Version baseVersion, Version version) {
+        return baseVersion.getSaveDate().before(version.getSaveDate())
+                && versionRepository.findTopByFile_IdAndSaveDateLessThanOrderBySaveDateDesc(
+                version.getFile().getId(), version.getSaveDate())
+                .map(previousVersion -> previousVersion.getId().equals(baseVersion.getId()))
+                .orElse(false);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<String> getParsedFileContentLines(ObjectId fileId, long versionSaveDateMillis, int from, int to)
+            throws VersionNotFoundException {
+        Version version = getVersion(fileId, versionSaveDateMillis);
+        return parsedContentService.getParsedFileContentLines(version, from, Math.max(from, to));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public VersionInfoDTO getVersionInfo(ObjectId fileId, long versionSaveDateMillis) throws VersionNotFoundException {
-        List<Version> versions = versionRepository
-                .findByFile_IdAndSaveDateLessThanEqualOrderBySaveDateDesc(fileId, new Date(versionSaveDateMillis));
+        List<Version> versions = versionRepository.findMetadataByFileIdAndSaveDateLessThanEqual(fileId,
+                new Date(versionSaveDateMillis), PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "saveDate")));
         if (versions.isEmpty())
             throw new VersionNotFoundException(String.valueOf(versionSaveDateMillis));
         String previousVersionString = null;
@@ -195,6 +443,51 @@ public class VersionServiceImpl implements VersionService {
         return versionRepository.existsByFile_IdAndVersionString(fileId, versionString);
     }
 
+    @Override
+    @Transactional
+    public void deleteVersionsOfFiles(Collection<FileMetadata> files) {
+        List<ObjectId> fileIds = files.stream().map(FileMetadata::getId).collect(Collectors.toList());
+        versionRepository.findCheckSumsOfStoredContentByFileIdIn(fileIds).stream()
+                .map(Version::getCheckSum)
+                .forEach(contentStorageService::release);
+        parsedContentService.deleteParsedContentsOfFiles(fileIds);
+        versionRepository.deleteByFileIn(files);
+    }
+
+    @Override
+    public long moveLegacyContentsToStorage() {
+        long moved = 0;
+        try (Stream<Version> versions = versionRepository.findWithLegacyContent()) {
+            for (Version version : (Iterable<Version>) versions::iterator) {
+                if (moveLegacyContentToStorage(version)) {
+                    moved++;
+                }
+            }
+        }
+        log.info("Moved {} legacy version contents to storage", moved);
+        return moved;
+    }
+
+    private boolean moveLegacyContentToStorage(Version version) {
+        String checkSum;
+        try {
+            checkSum = contentStorageService.store(new ByteArrayInputStream(version.getFileContent()), null,
+                    version.getFile().getContentType());
+        } catch (IOException e) {
+            log.error("Content of version " + version.getId() + " could not be moved to storage", e);
+            return false;
+        }
+        boolean updated = mongoOperations.updateFirst(
+                query(where("id").is(version.getId()).and("fileContent").exists(true)),
+                new Update().set("checkSum", checkSum).unset("fileContent"),
+                Version.class
+        ).getModifiedCount() == 1;
+        if (!updated) {
+            contentStorageService.release(checkSum);
+        }
+        return updated;
+    }
+
     private FileMetadata getFileMetadata(ObjectId fileId) throws FileNotFoundException {
         return fileMetadataRepository.findById(fileId)
                 .orElseThrow(() -> new FileNotFoundException(fileId.toString()));
@@ -0,0 +1,61 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.scrub;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits rate of reading bytes shared by many threads. Every read reserves time slot proportional to number of
+ * read bytes and waits until the slot begins.
+ */
+class ByteRateLimiter {
+    private final long nanosPerByte;
+    private long nextFreeSlot = System.nanoTime();
+
+    /**
+     * @param bytesPerSecond maximal rate, or non-positive number for unlimited rate
+     */
+    ByteRateLimiter(long bytesPerSecond) {
+        this.nanosPerByte = bytesPerSecond > 0 ? Math.max(1, TimeUnit.SECONDS.toNanos(1) / bytesPerSecond) : 0;
+    }
+
+    void acquire(long bytes) throws InterruptedIOException {
+        if (nanosPerByte == 0 || bytes <= 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slotStart = Math.max(now, nextFreeSlot);
+            nextFreeSlot = slotStart + bytes * nanosPerByte;
+            waitNanos = slotStart - now;
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Waiting for read budget has been interrupted");
+            }
+        }
+    }
+
+    InputStream limit(InputStream input) {
+        return new FilterInputStream(input) {
+            @Override
+            public int read() throws IOException {
+                acquire(1);
+                return super.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int read = super.read(b, off, len);
+                acquire(read);
+                return read;
+            }
+        };
+    }
+}
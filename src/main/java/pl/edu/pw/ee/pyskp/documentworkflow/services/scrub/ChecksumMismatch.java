@@ -0,0 +1,27 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.scrub;
+
+import lombok.NonNull;
+import lombok.Value;
+
+import java.util.Date;
+
+/**
+ * Stored data, whose recomputed check sum differs from saved one.
+ */
+@Value
+public class ChecksumMismatch {
+    /**
+     * Description of checked data, e.g. content blob or legacy version.
+     */
+    @NonNull
+    String source;
+
+    @NonNull
+    String expectedCheckSum;
+
+    @NonNull
+    String actualCheckSum;
+
+    @NonNull
+    Date detectionDate;
+}
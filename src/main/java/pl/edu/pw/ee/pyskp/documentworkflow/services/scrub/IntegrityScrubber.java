@@ -0,0 +1,284 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.scrub;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.StorageConfig;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ContentBlob;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Version;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.CheckSums;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.ContentStorageService;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Recomputes check sums of stored contents and compares them with saved ones. Contents are read in batches by
+ * low priority threads with limited read rate, so scrubbing can run next to regular traffic.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class IntegrityScrubber {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(CheckSums::newDigest);
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    @NonNull
+    private final StorageConfig storageConfig;
+
+    @NonNull
+    private final MongoOperations mongoOperations;
+
+    @NonNull
+    private final ContentStorageService contentStorageService;
+
+    @NonNull
+    private final MeterRegistry meterRegistry;
+
+    private final AsyncTaskExecutor scrubExecutor = new SimpleAsyncTaskExecutor("integrity-scrubber-");
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong checkedItems = new AtomicLong();
+    private final AtomicLong checkedBytes = new AtomicLong();
+    private final AtomicLong failedReads = new AtomicLong();
+    private final Deque<ChecksumMismatch> mismatches = new ArrayDeque<>();
+    private volatile Date lastStartDate;
+    private volatile Date lastFinishDate;
+
+    /**
+     * Starts scrubbing in background, so long throttled scrubbing does not hold the scheduler thread needed by other
+     * scheduled tasks.
+     */
+    @Scheduled(cron = "${dws.storage.scrub.cron}")
+    public void scheduledScrub() {
+        if (storageConfig.getScrub().isEnabled() && !start()) {
+            log.info("Integrity scrubbing is already running");
+        }
+    }
+
+    /**
+     * Starts scrubbing in background.
+     *
+     * @return {@code false} if scrubbing is already running
+     */
+    public boolean start() {
+        if (running.get()) {
+            return false;
+        }
+        scrubExecutor.execute(this::scrub);
+        return true;
+    }
+
+    /**
+     * Checks all stored contents in calling thread, unless scrubbing is already running.
+     */
+    public void scrub() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Integrity scrubbing is already running");
+            return;
+        }
+        StorageConfig.Scrub config = storageConfig.getScrub();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("integrity-scrubber-worker-");
+        threadFactory.setThreadPriority(Thread.MIN_PRIORITY);
+        threadFactory.setDaemon(true);
+        ExecutorService workers = Executors.newFixedThreadPool(config.getThreads(), threadFactory);
+        ByteRateLimiter limiter = new ByteRateLimiter(config.getMaxReadRate().toBytes());
+        checkedItems.set(0);
+        checkedBytes.set(0);
+        failedReads.set(0);
+        lastStartDate = new Date();
+        try {
+            scrubContents(workers, limiter);
+            scrubLegacyVersions(workers, limiter);
+            log.info("Integrity scrubbing checked {} items", checkedItems.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Integrity scrubbing has been interrupted");
+        } finally {
+            workers.shutdownNow();
+            lastFinishDate = new Date();
+            running.set(false);
+        }
+    }
+
+    public ScrubReport getReport() {
+        List<ChecksumMismatch> recentMismatches;
+        synchronized (mismatches) {
+            recentMismatches = new ArrayList<>(mismatches);
+        }
+        return new ScrubReport(running.get(), lastStartDate, lastFinishDate, checkedItems.get(), checkedBytes.get(),
+                failedReads.get(), recentMismatches);
+    }
+
+    private void scrubContents(ExecutorService workers, ByteRateLimiter limiter) throws InterruptedException {
+        String lastCheckSum = null;
+        while (true) {
+            Query batch = lastCheckSum == null ? new Query() : query(where("checkSum").gt(lastCheckSum));
+            batch.with(Sort.by("checkSum")).limit(storageConfig.getScrub().getBatchSize());
+            batch.fields().include("checkSum");
+            List<ContentBlob> contentBlobs = mongoOperations.find(batch, ContentBlob.class);
+            if (contentBlobs.isEmpty()) {
+                return;
+            }
+            awaitVerifications(workers.invokeAll(contentBlobs.stream()
+                    .map(ContentBlob::getCheckSum)
+                    .map(checkSum -> verification("content " + checkSum, checkSum,
+                            () -> contentStorageService.openInCurrentTier(checkSum), limiter))
+                    .collect(Collectors.toList())));
+            lastCheckSum = contentBlobs.get(contentBlobs.size() - 1).getCheckSum();
+            pause();
+        }
+    }
+
+    private void scrubLegacyVersions(ExecutorService workers, ByteRateLimiter limiter) throws InterruptedException {
+        ObjectId lastId = null;
+        while (true) {
+            Query batch = query(where("fileContent").exists(true));
+            if (lastId != null) {
+                batch.addCriteria(where("id").gt(lastId));
+            }
+            batch.with(Sort.by("id")).limit(storageConfig.getScrub().getBatchSize());
+            batch.fields().include("id").include("checkSum");
+            List<Version> versions = mongoOperations.find(batch, Version.class);
+            if (versions.isEmpty()) {
+                return;
+            }
+            awaitVerifications(workers.invokeAll(versions.stream()
+                    .map(version -> verification("version " + version.getId(), version.getCheckSum(),
+                            () -> openLegacyContent(version.getId()), limiter))
+                    .collect(Collectors.toList())));
+            lastId = versions.get(versions.size() - 1).getId();
+            pause();
+        }
+    }
+
+    /**
+     * Reads inline content of single version, when it is verified, so contents of whole batch are not kept in heap
+     * at once.
+     *
+     * @return content, or {@code null} if it has been removed in the meantime
+     */
+    private InputStream openLegacyContent(ObjectId versionId) {
+        Query versionQuery = query(where("id").is(versionId));
+        versionQuery.fields().include("fileContent");
+        Version version = mongoOperations.findOne(versionQuery, Version.class);
+        return version != null && version.getFileContent() != null
+                ? new ByteArrayInputStream(version.getFileContent())
+                : null;
+    }
+
+    /**
+     * Waits for verifications of batch and counts the ones, which failed unexpectedly.
+     */
+    private void awaitVerifications(List<Future<Void>> verifications) throws InterruptedException {
+        for (Future<Void> verification : verifications) {
+            try {
+                verification.get();
+            } catch (ExecutionException e) {
+                log.error("Integrity scrubber could not verify content", e.getCause());
+                failedReads.incrementAndGet();
+                meterRegistry.counter("dws.scrubber.failed.reads").increment();
+            }
+        }
+    }
+
+    private Callable<Void> verification(String source, String expectedCheckSum, ContentOpener opener,
+                                        ByteRateLimiter limiter) {
+        return () -> {
+            verify(source, expectedCheckSum, opener, limiter);
+            return null;
+        };
+    }
+
+    private void verify(String source, String expectedCheckSum, ContentOpener opener, ByteRateLimiter limiter) {
+        MessageDigest digest = DIGESTS.get();
+        digest.reset();
+        byte[] buffer = BUFFERS.get();
+        InputStream openedContent;
+        try {
+            openedContent = opener.open();
+        } catch (FileNotFoundException e) {
+            if (mongoOperations.exists(query(where("checkSum").is(expectedCheckSum)), ContentBlob.class)) {
+                reportFailedRead(source, e);
+            }
+            return;
+        } catch (IOException e) {
+            reportFailedRead(source, e);
+            return;
+        }
+        if (openedContent == null) {
+            return;
+        }
+        try (InputStream content = limiter.limit(openedContent)) {
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+                checkedBytes.addAndGet(read);
+                meterRegistry.counter("dws.scrubber.checked.bytes").increment(read);
+            }
+        } catch (IOException e) {
+            reportFailedRead(source, e);
+            return;
+        }
+        checkedItems.incrementAndGet();
+        meterRegistry.counter("dws.scrubber.checked.items").increment();
+        String actualCheckSum = CheckSums.toCheckSum(digest.digest());
+        if (!actualCheckSum.equals(expectedCheckSum)) {
+            reportMismatch(new ChecksumMismatch(source, expectedCheckSum, actualCheckSum, new Date()));
+        }
+    }
+
+    private void reportFailedRead(String source, IOException e) {
+        log.error("Integrity scrubber could not read " + source, e);
+        failedReads.incrementAndGet();
+        meterRegistry.counter("dws.scrubber.failed.reads").increment();
+    }
+
+    private void reportMismatch(ChecksumMismatch mismatch) {
+        log.error("Check sum mismatch: {}", mismatch);
+        meterRegistry.counter("dws.scrubber.mismatches").increment();
+        synchronized (mismatches) {
+            mismatches.addLast(mismatch);
+            while (mismatches.size() > storageConfig.getScrub().getReportedMismatches()) {
+                mismatches.removeFirst();
+            }
+        }
+    }
+
+    private void pause() throws InterruptedException {
+        Thread.sleep(storageConfig.getScrub().getPauseBetweenBatches().toMillis());
+    }
+
+    @FunctionalInterface
+    private interface ContentOpener {
+        /**
+         * @return content, or {@code null} if it no longer exists
+         */
+        InputStream open() throws IOException;
+    }
+}
@@ -0,0 +1,26 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.scrub;
+
+import lombok.Value;
+
+import java.util.Date;
+import java.util.List;
+
+@Value
+public class ScrubReport {
+    boolean running;
+
+    Date lastStartDate;
+
+    Date lastFinishDate;
+
+    long checkedItems;
+
+    long checkedBytes;
+
+    long failedReads;
+
+    /**
+     * Recently detected mismatches, the newest last.
+     */
+    List<ChecksumMismatch> mismatches;
+}
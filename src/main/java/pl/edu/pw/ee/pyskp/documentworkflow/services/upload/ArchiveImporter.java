@@ -0,0 +1,140 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.upload;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.UploadConfig;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ContentType;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Stores contents of all entries of uploaded ZIP archive, in parallel on pool shared by all imports. Entries are
+ * checked and stored the same way as single uploaded files.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class ArchiveImporter {
+    private static final String UNKNOWN_CONTENT_TYPE = "UnknownContentType";
+    private static final String TOO_LARGE = "TooLarge";
+    private static final String TOO_MANY_ENTRIES = "TooManyEntries";
+    private static final String NOT_READABLE = "NotReadable";
+
+    @NonNull
+    private final UploadConfig uploadConfig;
+
+    @NonNull
+    private final UploadPipeline uploadPipeline;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void startExecutor() {
+        executor = Executors.newFixedThreadPool(uploadConfig.getArchive().getThreads(),
+                new CustomizableThreadFactory("archive-import-"));
+    }
+
+    @PreDestroy
+    public void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Stores files of archive, skipping directories.
+     *
+     * @return entries in order of archive, with stored contents or errors
+     */
+    public List<ImportedEntry> importEntries(MultipartFile archive) throws IOException {
+        Path archiveFile = Files.createTempFile("import-", ".zip");
+        try {
+            archive.transferTo(archiveFile);
+            try (ZipFile zipFile = new ZipFile(archiveFile.toFile())) {
+                List<? extends ZipEntry> entries = zipFile.stream()
+                        .filter(entry -> !entry.isDirectory())
+                        .collect(Collectors.toList());
+                int maxEntries = uploadConfig.getArchive().getMaxEntries();
+                List<Future<ImportedEntry>> importedEntries = new ArrayList<>(Math.min(entries.size(), maxEntries));
+                for (ZipEntry entry : entries.subList(0, Math.min(entries.size(), maxEntries))) {
+                    importedEntries.add(executor.submit(() -> importEntry(zipFile, entry)));
+                }
+                List<ImportedEntry> result = new ArrayList<>(entries.size());
+                for (Future<ImportedEntry> importedEntry : importedEntries) {
+                    result.add(getImportedEntry(importedEntry));
+                }
+                for (ZipEntry entry : entries.subList(importedEntries.size(), entries.size())) {
+                    result.add(ImportedEntry.rejected(entry.getName(), TOO_MANY_ENTRIES));
+                }
+                return result;
+            }
+        } finally {
+            Files.deleteIfExists(archiveFile);
+        }
+    }
+
+    private ImportedEntry importEntry(ZipFile zipFile, ZipEntry entry) {
+        String name = entry.getName();
+        long maxEntrySize = uploadConfig.getArchive().getMaxEntrySize().toBytes();
+        if (entry.getSize() > maxEntrySize) {
+            return ImportedEntry.rejected(name, TOO_LARGE);
+        }
+        InputStreamSource source = () -> new LimitedInputStream(zipFile.getInputStream(entry), maxEntrySize);
+        try {
+            Set<ContentType> possibleContentTypes = uploadPipeline.sniffContentTypes(source);
+            if (possibleContentTypes.isEmpty()) {
+                return ImportedEntry.rejected(name, UNKNOWN_CONTENT_TYPE);
+            }
+            ContentType expectedContentType = possibleContentTypes.size() == 1
+                    ? possibleContentTypes.iterator().next()
+                    : null;
+            UploadedContent content = uploadPipeline.process(source, null, expectedContentType);
+            Optional<ContentType> contentType = ContentType.fromName(content.getMediaType());
+            if (!contentType.isPresent()) {
+                uploadPipeline.discard(content);
+                return ImportedEntry.rejected(name, UNKNOWN_CONTENT_TYPE);
+            }
+            return ImportedEntry.stored(name, contentType.get(), content);
+        } catch (IOException | RuntimeException e) {
+            if (LimitedInputStream.isCausedByExceededLimit(e)) {
+                log.warn("Entry {} of imported archive exceeded its size limit when inflated", name);
+                return ImportedEntry.rejected(name, TOO_LARGE);
+            }
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            log.error("Entry " + name + " of imported archive could not be stored", e);
+            return ImportedEntry.rejected(name, NOT_READABLE);
+        }
+    }
+
+    private static ImportedEntry getImportedEntry(Future<ImportedEntry> importedEntry) throws IOException {
+        try {
+            return importedEntry.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import of archive has been interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Entry of archive could not be imported", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.upload;
+
+import lombok.NonNull;
+import lombok.Value;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ContentType;
+
+/**
+ * Archive entry, which content has been stored, or which has been rejected with given error code.
+ */
+@Value
+public class ImportedEntry {
+    @NonNull
+    String name;
+
+    ContentType contentType;
+
+    UploadedContent content;
+
+    String error;
+
+    static ImportedEntry stored(String name, ContentType contentType, UploadedContent content) {
+        return new ImportedEntry(name, contentType, content, null);
+    }
+
+    static ImportedEntry rejected(String name, String error) {
+        return new ImportedEntry(name, null, null, error);
+    }
+
+    public boolean isStored() {
+        return content != null;
+    }
+}
@@ -0,0 +1,98 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.upload;
+
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ContentType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Narrows down types, which content may be of, using only its leading bytes. Office 2003 documents are OLE2
+ * files. OOXML and ODF documents are ZIP archives, recognized by names of their first entries and, for ODF, by the
+ * uncompressed {@code mimetype} entry, which has to be the first one.
+ */
+final class LeadingBytesSniffer {
+    static final int PREFIX_SIZE = 8 * 1024;
+
+    private static final byte[] OLE2_MAGIC = {
+            (byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1
+    };
+    private static final byte[] ZIP_ENTRY_MAGIC = {'P', 'K', 3, 4};
+    private static final int ZIP_ENTRY_HEADER_SIZE = 30;
+    private static final int ZIP_DATA_DESCRIPTOR_FLAG = 1 << 3;
+    private static final int ZIP_STORED = 0;
+    private static final String ODF_MIME_TYPE_ENTRY = "mimetype";
+
+    private LeadingBytesSniffer() {
+    }
+
+    /**
+     * @return types content may be of, empty if it cannot be of any supported type
+     */
+    static Set<ContentType> getPossibleContentTypes(byte[] prefix, int length) {
+        if (startsWith(prefix, length, OLE2_MAGIC)) {
+            return EnumSet.of(ContentType.WORD_2003_DOCUMENT, ContentType.EXCEL_2003_SPREADSHEET);
+        }
+        if (startsWith(prefix, length, ZIP_ENTRY_MAGIC)) {
+            return getPossibleZipContentTypes(prefix, length);
+        }
+        return EnumSet.noneOf(ContentType.class);
+    }
+
+    private static Set<ContentType> getPossibleZipContentTypes(byte[] prefix, int length) {
+        int offset = 0;
+        while (offset + ZIP_ENTRY_HEADER_SIZE <= length && matches(prefix, offset, ZIP_ENTRY_MAGIC)) {
+            int flags = readShort(prefix, offset + 6);
+            int method = readShort(prefix, offset + 8);
+            long compressedSize = readInt(prefix, offset + 18);
+            int nameLength = readShort(prefix, offset + 26);
+            int extraLength = readShort(prefix, offset + 28);
+            int nameOffset = offset + ZIP_ENTRY_HEADER_SIZE;
+            int dataOffset = nameOffset + nameLength + extraLength;
+            if (nameOffset + nameLength > length) {
+                break;
+            }
+            String name = new String(prefix, nameOffset, nameLength, StandardCharsets.UTF_8);
+            if (offset == 0 && ODF_MIME_TYPE_ENTRY.equals(name) && method == ZIP_STORED
+                    && dataOffset + compressedSize <= length) {
+                String mimeType = new String(prefix, dataOffset, (int) compressedSize, StandardCharsets.US_ASCII);
+                return ContentType.fromName(mimeType.trim())
+                        .map(EnumSet::of)
+                        .orElseGet(() -> EnumSet.noneOf(ContentType.class));
+            }
+            if (name.startsWith("word/")) {
+                return EnumSet.of(ContentType.WORD_2007_DOCUMENT);
+            }
+            if (name.startsWith("xl/")) {
+                return EnumSet.of(ContentType.EXCEL_2007_SPREADSHEET);
+            }
+            if ((flags & ZIP_DATA_DESCRIPTOR_FLAG) != 0) {
+                break;
+            }
+            offset = (int) Math.min(dataOffset + compressedSize, Integer.MAX_VALUE);
+        }
+        return EnumSet.of(ContentType.WORD_2007_DOCUMENT, ContentType.EXCEL_2007_SPREADSHEET,
+                ContentType.OPEN_DOCUMENT_TEXT, ContentType.OPEN_DOCUMENT_SPREADSHEET);
+    }
+
+    private static boolean startsWith(byte[] prefix, int length, byte[] magic) {
+        return length >= magic.length && matches(prefix, 0, magic);
+    }
+
+    private static boolean matches(byte[] prefix, int offset, byte[] magic) {
+        for (int i = 0; i < magic.length; i++) {
+            if (prefix[offset + i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int readShort(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8;
+    }
+
+    private static long readInt(byte[] bytes, int offset) {
+        return readShort(bytes, offset) | (long) readShort(bytes, offset + 2) << 16;
+    }
+}
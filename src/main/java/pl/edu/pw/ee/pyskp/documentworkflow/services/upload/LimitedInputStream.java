@@ -0,0 +1,74 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.upload;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream failing with {@link LimitExceededException}, when more than given number of bytes is read from it.
+ * Unlike declared sizes, e.g. of ZIP entries, it limits bytes actually read.
+ */
+class LimitedInputStream extends FilterInputStream {
+    private final long limit;
+    private long count;
+
+    LimitedInputStream(InputStream in, long limit) {
+        super(in);
+        this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int read = super.read();
+        if (read != -1) {
+            count(1);
+        }
+        return read;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            count(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void count(long read) throws LimitExceededException {
+        count += read;
+        if (count > limit) {
+            throw new LimitExceededException(limit);
+        }
+    }
+
+    static class LimitExceededException extends IOException {
+        LimitExceededException(long limit) {
+            super("Stream exceeded limit of " + limit + " bytes");
+        }
+    }
+
+    /**
+     * Returns whether exception has been caused by exceeding limit, possibly wrapped by other exceptions.
+     */
+    static boolean isCausedByExceededLimit(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof LimitExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,97 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.upload;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Input stream, which copies every byte read from it to the branch. Branch is closed at the end of the stream.
+ * Failure of the branch does not interrupt reading, the branch is just detached.
+ */
+@Slf4j
+class TeeInputStream extends FilterInputStream {
+    private OutputStream branch;
+
+    TeeInputStream(InputStream in, OutputStream branch) {
+        super(in);
+        this.branch = branch;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int read = super.read();
+        if (read == -1) {
+            closeBranch();
+        } else if (branch != null) {
+            try {
+                branch.write(read);
+            } catch (IOException e) {
+                detachBranch(e);
+            }
+        }
+        return read;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read == -1) {
+            closeBranch();
+        } else if (branch != null) {
+            try {
+                branch.write(b, off, read);
+            } catch (IOException e) {
+                detachBranch(e);
+            }
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read == -1) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            closeBranch();
+        }
+    }
+
+    private void detachBranch(IOException cause) {
+        log.warn("Branch of stream has been detached", cause);
+        closeBranch();
+    }
+
+    private void closeBranch() {
+        if (branch == null) {
+            return;
+        }
+        try {
+            branch.close();
+        } catch (IOException e) {
+            log.warn("Branch of stream could not be closed", e);
+        }
+        branch = null;
+    }
+}
@@ -0,0 +1,119 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.upload;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tika.io.TikaInputStream;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.UploadConfig;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ContentType;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.ContentStorageService;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.TikaService;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.*;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Reads uploaded file once. While the content is being written to storage (which also computes its check sum),
+ * the same bytes are piped to Tika, which detects their media type. Text is extracted later, outside of request.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class UploadPipeline {
+    private static final int PIPE_SIZE = 64 * 1024;
+
+    @NonNull
+    private final ContentStorageService contentStorageService;
+
+    @NonNull
+    private final TikaService tikaService;
+
+    @NonNull
+    private final UploadConfig uploadConfig;
+
+    private ThreadPoolTaskExecutor detectorExecutor;
+
+    @PostConstruct
+    public void startDetectorExecutor() {
+        UploadConfig.Detection detection = uploadConfig.getDetection();
+        detectorExecutor = new ThreadPoolTaskExecutor();
+        detectorExecutor.setCorePoolSize(detection.getThreads());
+        detectorExecutor.setMaxPoolSize(detection.getThreads());
+        detectorExecutor.setQueueCapacity(detection.getQueueCapacity());
+        detectorExecutor.setThreadNamePrefix("upload-detector-");
+        detectorExecutor.initialize();
+    }
+
+    @PreDestroy
+    public void stopDetectorExecutor() {
+        detectorExecutor.shutdown();
+    }
+
+    /**
+     * Returns types uploaded file may be of, reading only its leading bytes, so uploads which cannot be of
+     * supported or expected type are rejected before they are stored and detected from the whole content.
+     * <p>
+     * Multipart files have already been received whole by multipart resolver, which spools them to temporary files,
+     * so the rejection saves writes to storage and detection, but neither bandwidth nor reading of request body.
+     *
+     * @return possible types, empty if file cannot be of any supported type
+     */
+    public Set<ContentType> sniffContentTypes(InputStreamSource file) throws IOException {
+        byte[] prefix = new byte[LeadingBytesSniffer.PREFIX_SIZE];
+        int length;
+        try (InputStream source = file.getInputStream()) {
+            length = source.readNBytes(prefix, 0, prefix.length);
+        }
+        return LeadingBytesSniffer.getPossibleContentTypes(prefix, length);
+    }
+
+    /**
+     * @param contentType expected type of uploaded content, or {@code null} if unknown
+     */
+    public UploadedContent process(InputStreamSource file, String baseCheckSum, ContentType contentType)
+            throws IOException {
+        PipedInputStream detectorInput = new PipedInputStream(PIPE_SIZE);
+        Future<String> detection;
+        String checkSum;
+        try (InputStream source = file.getInputStream();
+             TeeInputStream content = new TeeInputStream(source, new PipedOutputStream(detectorInput))) {
+            try {
+                detection = detectorExecutor.submit(() -> detectMediaType(detectorInput));
+            } catch (TaskRejectedException e) {
+                throw new IOException("Too many uploads are being processed", e);
+            }
+            checkSum = contentStorageService.store(content, baseCheckSum, contentType);
+        }
+        try {
+            return new UploadedContent(checkSum, detection.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            contentStorageService.release(checkSum);
+            throw new InterruptedIOException("Detection of type of uploaded content has been interrupted");
+        } catch (ExecutionException e) {
+            contentStorageService.release(checkSum);
+            throw new IOException("Could not detect type of uploaded content", e.getCause());
+        }
+    }
+
+    private String detectMediaType(InputStream detectorInput) throws IOException {
+        try (InputStream input = detectorInput) {
+            return tikaService.detectMediaType(TikaInputStream.get(input));
+        }
+    }
+
+    /**
+     * Releases stored content of upload, which has been rejected.
+     */
+    public void discard(UploadedContent uploadedContent) {
+        contentStorageService.release(uploadedContent.getCheckSum());
+    }
+}
@@ -0,0 +1,12 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.upload;
+
+import lombok.NonNull;
+import lombok.Value;
+
+@Value
+public class UploadedContent {
+    @NonNull
+    String checkSum;
+
+    String mediaType;
+}
@@ -0,0 +1,83 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.config;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SendfileResourceHttpMessageConverterTest {
+    private static final byte[] CONTENT = "stored content".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final SendfileResourceHttpMessageConverter converter = new SendfileResourceHttpMessageConverter();
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/content");
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        file = temporaryFolder.newFile();
+        Files.write(file.toPath(), CONTENT);
+    }
+
+    @After
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void fileIsHandedOverToConnectorSupportingSendfile() throws Exception {
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+
+        write(new FileSystemResource(file));
+
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.filename")).isEqualTo(file.getAbsolutePath());
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(0L);
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo((long) CONTENT.length);
+        assertThat(response.getContentLengthLong()).isEqualTo(CONTENT.length);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    public void fileIsWrittenWithoutSendfileSupport() throws Exception {
+        write(new FileSystemResource(file));
+
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.filename")).isNull();
+        assertThat(response.getContentAsByteArray()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    public void resourceNotKeptInFileIsWritten() throws Exception {
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+
+        write(new ByteArrayResource(CONTENT));
+
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.filename")).isNull();
+        assertThat(response.getContentAsByteArray()).isEqualTo(CONTENT);
+    }
+
+    private void write(Resource resource) throws Exception {
+        ServletServerHttpResponse outputMessage = new ServletServerHttpResponse(response);
+        converter.write(resource, MediaType.APPLICATION_OCTET_STREAM, outputMessage);
+        outputMessage.close();
+    }
+}
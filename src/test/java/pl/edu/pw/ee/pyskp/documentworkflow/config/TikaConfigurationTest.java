@@ -0,0 +1,51 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.config;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.fork.ForkParser;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.junit.Test;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.TikaService;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TikaConfigurationTest {
+    private final TikaConfiguration tikaConfiguration = new TikaConfiguration();
+
+    @Test
+    public void forkParserExtractsLinesOfDocumentWithoutKnownContentType() throws Exception {
+        ParsingConfig parsingConfig = new ParsingConfig();
+        parsingConfig.getFork().setEnabled(true);
+        parsingConfig.getFork().setPoolSize(1);
+        parsingConfig.getFork().setJavaCommand(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        TikaConfig tikaConfig = tikaConfiguration.tikaConfig();
+        ForkParser forkParser = tikaConfiguration.forkParser(tikaConfig, parsingConfig);
+        try {
+            TikaService tikaService = new TikaService(tikaConfiguration.tika(tikaConfig, Optional.of(forkParser)));
+
+            List<String> lines = tikaService.extractLines(TikaInputStream.get(createDocx("First paragraph",
+                    "Second paragraph")), new Metadata());
+
+            assertThat(lines).contains("First paragraph", "Second paragraph");
+        } finally {
+            forkParser.close();
+        }
+    }
+
+    private static byte[] createDocx(String... paragraphs) throws Exception {
+        try (XWPFDocument document = new XWPFDocument()) {
+            for (String paragraph : paragraphs) {
+                document.createParagraph().createRun().setText(paragraph);
+            }
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            document.write(output);
+            return output.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.data.storage;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BinaryDeltaTest {
+    private final Random random = new Random(42);
+
+    @Test
+    public void emptyContentsRoundTrip() {
+        assertRoundTrip(new byte[0], new byte[0]);
+        assertRoundTrip(new byte[0], randomBytes(100));
+        assertRoundTrip(randomBytes(100), new byte[0]);
+    }
+
+    @Test
+    public void contentsShorterThanBlockRoundTrip() {
+        assertRoundTrip(bytes("short"), bytes("shorter"));
+    }
+
+    @Test
+    public void identicalContentsRoundTripWithSmallDelta() {
+        byte[] content = randomBytes(10_000);
+
+        byte[] delta = assertRoundTrip(content, content.clone());
+
+        assertThat(delta.length).isLessThan(content.length / 10);
+    }
+
+    @Test
+    public void unrelatedContentsRoundTrip() {
+        assertRoundTrip(randomBytes(5_000), randomBytes(7_000));
+    }
+
+    @Test
+    public void editedContentRoundTripsWithSmallDelta() {
+        byte[] base = randomBytes(50_000);
+        byte[] target = new byte[base.length + 100];
+        System.arraycopy(base, 0, target, 0, 20_000);
+        System.arraycopy(randomBytes(100), 0, target, 20_000, 100);
+        System.arraycopy(base, 20_000, target, 20_100, 30_000);
+        target[45_000] ^= 1;
+
+        byte[] delta = assertRoundTrip(base, target);
+
+        assertThat(delta.length).isLessThan(1_000);
+    }
+
+    @Test
+    public void repetitiveContentsRoundTrip() {
+        byte[] base = new byte[4_096];
+        Arrays.fill(base, (byte) 'a');
+        byte[] target = new byte[6_000];
+        Arrays.fill(target, (byte) 'a');
+        target[3_000] = 'b';
+
+        assertRoundTrip(base, target);
+    }
+
+    @Test
+    public void randomEditsRoundTrip() {
+        for (int i = 0; i < 200; i++) {
+            byte[] base = randomBytes(random.nextInt(2_000));
+            byte[] target = base.clone();
+            for (int j = 0; j < target.length / 100; j++) {
+                target[random.nextInt(target.length)] = (byte) random.nextInt();
+            }
+            assertRoundTrip(base, target);
+        }
+    }
+
+    private static byte[] assertRoundTrip(byte[] base, byte[] target) {
+        byte[] delta = BinaryDelta.encode(base, target);
+        assertThat(BinaryDelta.apply(base, delta)).isEqualTo(target);
+        return delta;
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
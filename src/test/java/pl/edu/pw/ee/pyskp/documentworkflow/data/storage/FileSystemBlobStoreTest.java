@@ -0,0 +1,138 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.data.storage;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FileSystemBlobStoreTest {
+    private static final byte[] CONTENT = createContent(10_000);
+    private static final String UNIQUE_SUFFIX = "_0123456789abcdef0123456789abcdef";
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path root;
+
+    @Before
+    public void setUp() {
+        root = temporaryFolder.getRoot().toPath();
+    }
+
+    @Test
+    public void storedBlobIsReadThroughMemoryMapping() throws IOException {
+        FileSystemBlobStore blobStore = new FileSystemBlobStore(root, CONTENT.length);
+        String blobId = blobStore.store("name", new ByteArrayInputStream(CONTENT));
+
+        try (InputStream blob = blobStore.open(blobId)) {
+            assertThat(blob.readAllBytes()).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    public void storedBlobIsReadThroughChannel() throws IOException {
+        FileSystemBlobStore blobStore = new FileSystemBlobStore(root, CONTENT.length - 1);
+        String blobId = blobStore.store("name", new ByteArrayInputStream(CONTENT));
+
+        try (InputStream blob = blobStore.open(blobId)) {
+            assertThat(blob.readAllBytes()).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    public void blobIsNamedAndShardedByCheckSum() throws IOException {
+        FileSystemBlobStore blobStore = new FileSystemBlobStore(root, 0);
+        String checkSum = CheckSums.calculate(CONTENT);
+
+        String blobId = blobStore.store("name", new ByteArrayInputStream(CONTENT));
+
+        assertThat(blobId).matches(checkSum + "_[0-9a-f]{32}");
+        String digits = checkSum.startsWith("-") ? checkSum.substring(1) : checkSum;
+        assertThat(blobStore.getLocalPath(blobId))
+                .contains(root.resolve(digits.substring(0, 2)).resolve(digits.substring(2, 4)).resolve(blobId));
+        try (Stream<Path> temporaryFiles = Files.list(root.resolve("tmp"))) {
+            assertThat(temporaryFiles).isEmpty();
+        }
+    }
+
+    @Test
+    public void equalContentsAreStoredAsSeparateBlobs() throws IOException {
+        FileSystemBlobStore blobStore = new FileSystemBlobStore(root, 0);
+
+        String blobId = blobStore.store("name", new ByteArrayInputStream(CONTENT));
+        String otherBlobId = blobStore.store("name", new ByteArrayInputStream(CONTENT));
+
+        assertThat(otherBlobId).isNotEqualTo(blobId);
+        blobStore.delete(blobId);
+        try (InputStream blob = blobStore.open(otherBlobId)) {
+            assertThat(blob.readAllBytes()).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    public void failedStoreLeavesNoFiles() throws IOException {
+        FileSystemBlobStore blobStore = new FileSystemBlobStore(root, 0);
+        InputStream failingContent = new SequenceInputStream(new ByteArrayInputStream(CONTENT), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Upload interrupted");
+            }
+        });
+
+        assertThatThrownBy(() -> blobStore.store("name", failingContent)).hasMessage("Upload interrupted");
+
+        try (Stream<Path> files = Files.walk(root)) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+    }
+
+    @Test
+    public void deletedBlobCannotBeOpened() throws IOException {
+        FileSystemBlobStore blobStore = new FileSystemBlobStore(root, 0);
+        String blobId = blobStore.store("name", new ByteArrayInputStream(CONTENT));
+
+        blobStore.delete(blobId);
+        blobStore.delete(blobId);
+
+        assertThat(blobStore.getLocalPath(blobId)).isEmpty();
+        assertThatThrownBy(() -> blobStore.open(blobId)).isInstanceOf(FileNotFoundException.class);
+    }
+
+    @Test
+    public void blobIdsOfNegativeCheckSumsAreAccepted() {
+        FileSystemBlobStore blobStore = new FileSystemBlobStore(root, 0);
+
+        assertThat(blobStore.getLocalPath("-" + "f".repeat(63) + UNIQUE_SUFFIX)).isEmpty();
+        assertThat(blobStore.getLocalPath("-8" + "0".repeat(63) + UNIQUE_SUFFIX)).isEmpty();
+    }
+
+    @Test
+    public void malformedBlobIdsAreRejected() {
+        FileSystemBlobStore blobStore = new FileSystemBlobStore(root, 0);
+
+        Stream.of("../" + "0".repeat(61) + UNIQUE_SUFFIX, "0".repeat(63) + UNIQUE_SUFFIX,
+                "-" + "0".repeat(62) + UNIQUE_SUFFIX, "0-" + "0".repeat(63) + UNIQUE_SUFFIX, "0".repeat(64))
+                .forEach(blobId -> assertThatThrownBy(() -> blobStore.getLocalPath(blobId))
+                        .isInstanceOf(IllegalArgumentException.class));
+    }
+
+    private static byte[] createContent(int length) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        return content;
+    }
+}
@@ -0,0 +1,29 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.data.storage;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JoinedLinesTest {
+    @Test
+    public void linesAreSplitAsJoined() {
+        assertRoundTrip(Collections.emptyList());
+        assertRoundTrip(Collections.singletonList(""));
+        assertRoundTrip(Arrays.asList("", ""));
+        assertRoundTrip(Arrays.asList("first", ""));
+        assertRoundTrip(Arrays.asList("", "second", "\u017c\u00f3\u0142w"));
+    }
+
+    @Test
+    public void singleEmptyLineWithoutCountIsReadAsNoLines() {
+        assertThat(JoinedLines.split(JoinedLines.join(Collections.singletonList("")))).isEmpty();
+    }
+
+    private static void assertRoundTrip(List<String> lines) {
+        assertThat(JoinedLines.split(JoinedLines.join(lines), lines.size())).isEqualTo(lines);
+    }
+}
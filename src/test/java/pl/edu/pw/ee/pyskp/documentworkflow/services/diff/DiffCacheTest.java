@@ -0,0 +1,102 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.DiffConfig;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Difference;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.util.unit.DataSize.ofBytes;
+
+public class DiffCacheTest {
+    private final DiffConfig diffConfig = new DiffConfig();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DiffCache diffCache = new DiffCache(diffConfig, meterRegistry);
+    private final ObjectId baseVersionId = new ObjectId();
+    private final ObjectId versionId = new ObjectId();
+    private final AtomicInteger computations = new AtomicInteger();
+
+    @Test
+    public void differencesAreComputedOncePerPairOfVersions() {
+        DiffResult first = diffCache.get(baseVersionId, versionId, this::computeDifferences);
+        DiffResult second = diffCache.get(baseVersionId, versionId, this::computeDifferences);
+        diffCache.get(versionId, baseVersionId, this::computeDifferences);
+
+        assertThat(second).isSameAs(first);
+        assertThat(computations).hasValue(2);
+        assertThat(meterRegistry.counter("dws.diff.cache", "type", "differences", "result", "hit").count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.counter("dws.diff.cache", "type", "differences", "result", "miss").count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void leastRecentlyUsedDifferencesAreEvictedWhenSizeIsExceeded() {
+        diffConfig.getCache().setSize(ofBytes(300));
+        ObjectId otherVersionId = new ObjectId();
+        ObjectId anotherVersionId = new ObjectId();
+        diffCache.get(baseVersionId, versionId, this::computeDifferences);
+        diffCache.get(baseVersionId, otherVersionId, this::computeDifferences);
+        diffCache.get(baseVersionId, versionId, this::computeDifferences);
+
+        diffCache.get(baseVersionId, anotherVersionId, this::computeDifferences);
+        diffCache.get(baseVersionId, versionId, this::computeDifferences);
+        diffCache.get(baseVersionId, otherVersionId, this::computeDifferences);
+
+        assertThat(computations).hasValue(4);
+    }
+
+    @Test
+    public void approximateDifferencesAreCachedAsApproximate() {
+        Supplier<DiffResult> computation = () -> {
+            computations.incrementAndGet();
+            return new DiffResult(new ArrayList<>(Collections.singletonList(new Difference())), true);
+        };
+
+        diffCache.get(baseVersionId, versionId, computation);
+        DiffResult cached = diffCache.get(baseVersionId, versionId, computation);
+
+        assertThat(cached.isApproximate()).isTrue();
+        assertThat(cached.getDifferences()).hasSize(1);
+        assertThat(computations).hasValue(1);
+    }
+
+    @Test
+    public void lineChangesAreCachedPerHunkAndGranularity() {
+        Supplier<List<LineChange>> computation = () -> {
+            computations.incrementAndGet();
+            return new ArrayList<>();
+        };
+
+        diffCache.getLineChanges(baseVersionId, versionId, 3, 0, IntraLineGranularity.WORD, computation);
+        diffCache.getLineChanges(baseVersionId, versionId, 3, 0, IntraLineGranularity.WORD, computation);
+        diffCache.getLineChanges(baseVersionId, versionId, 3, 0, IntraLineGranularity.CHARACTER, computation);
+        diffCache.getLineChanges(baseVersionId, versionId, 3, 1, IntraLineGranularity.WORD, computation);
+        diffCache.getLineChanges(baseVersionId, versionId, 5, 0, IntraLineGranularity.WORD, computation);
+
+        assertThat(computations).hasValue(4);
+    }
+
+    @Test
+    public void disabledCacheComputesDifferencesEachTime() {
+        diffConfig.getCache().setEnabled(false);
+
+        diffCache.get(baseVersionId, versionId, this::computeDifferences);
+        diffCache.get(baseVersionId, versionId, this::computeDifferences);
+
+        assertThat(computations).hasValue(2);
+    }
+
+    private DiffResult computeDifferences() {
+        computations.incrementAndGet();
+        return new DiffResult(new ArrayList<>(Collections.singletonList(new Difference())), false);
+    }
+}
@@ -0,0 +1,98 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+import org.junit.Test;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Difference;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.DifferenceType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HunkTest {
+    @Test
+    public void noDifferencesMakeNoHunks() {
+        assertThat(Hunk.group(Collections.emptyList(), 3)).isEmpty();
+    }
+
+    @Test
+    public void hunkCoversDifferenceWithContextClippedAtStart() {
+        Difference difference = modification(1, 2);
+
+        List<Hunk> hunks = Hunk.group(Collections.singletonList(difference), 3);
+
+        assertThat(hunks).hasSize(1);
+        assertHunk(hunks.get(0), 0, 6, 0, 6);
+        assertThat(hunks.get(0).getDifferences()).containsExactly(difference);
+    }
+
+    @Test
+    public void differencesSeparatedByTwiceTheContextShareHunk() {
+        Difference first = modification(10, 1);
+        Difference second = modification(17, 1);
+
+        List<Hunk> hunks = Hunk.group(Arrays.asList(first, second), 3);
+
+        assertThat(hunks).hasSize(1);
+        assertHunk(hunks.get(0), 7, 21, 7, 21);
+        assertThat(hunks.get(0).getDifferences()).containsExactly(first, second);
+    }
+
+    @Test
+    public void differencesSeparatedByMoreThanTwiceTheContextAreInSeparateHunks() {
+        Difference first = modification(10, 1);
+        Difference second = modification(18, 1);
+
+        List<Hunk> hunks = Hunk.group(Arrays.asList(first, second), 3);
+
+        assertThat(hunks).hasSize(2);
+        assertHunk(hunks.get(0), 7, 14, 7, 14);
+        assertHunk(hunks.get(1), 15, 22, 15, 22);
+        assertThat(hunks.get(1).getDifferences()).containsExactly(second);
+    }
+
+    @Test
+    public void hunksFollowPositionsInBothVersions() {
+        Difference insertion = difference(5, 0, 5, 4, DifferenceType.INSERT);
+        Difference deletion = difference(20, 2, 24, 0, DifferenceType.DELETE);
+
+        List<Hunk> hunks = Hunk.group(Arrays.asList(insertion, deletion), 2);
+
+        assertThat(hunks).hasSize(2);
+        assertHunk(hunks.get(0), 3, 7, 3, 11);
+        assertHunk(hunks.get(1), 18, 24, 22, 26);
+    }
+
+    @Test
+    public void zeroContextJoinsOnlyAdjacentDifferences() {
+        List<Hunk> hunks = Hunk.group(Arrays.asList(modification(3, 1), modification(4, 1), modification(6, 1)), 0);
+
+        assertThat(hunks).hasSize(2);
+        assertThat(hunks.get(0).getDifferences()).hasSize(2);
+        assertHunk(hunks.get(0), 3, 5, 3, 5);
+        assertHunk(hunks.get(1), 6, 7, 6, 7);
+    }
+
+    private static void assertHunk(Hunk hunk, int previousStart, int previousEnd, int currentStart, int currentEnd) {
+        assertThat(hunk.getPreviousStart()).isEqualTo(previousStart);
+        assertThat(hunk.getPreviousEnd()).isEqualTo(previousEnd);
+        assertThat(hunk.getCurrentStart()).isEqualTo(currentStart);
+        assertThat(hunk.getCurrentEnd()).isEqualTo(currentEnd);
+    }
+
+    private static Difference modification(int start, int size) {
+        return difference(start, size, start, size, DifferenceType.MODIFICATION);
+    }
+
+    private static Difference difference(int previousStart, int previousSize, int newStart, int newSize,
+                                         DifferenceType type) {
+        Difference difference = new Difference();
+        difference.setPreviousSectionStart(previousStart);
+        difference.setPreviousSectionSize(previousSize);
+        difference.setNewSectionStart(newStart);
+        difference.setNewSectionSize(newSize);
+        difference.setDifferenceType(type);
+        return difference;
+    }
+}
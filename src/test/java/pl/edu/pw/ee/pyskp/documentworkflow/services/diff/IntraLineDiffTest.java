@@ -0,0 +1,135 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+import org.junit.Test;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Difference;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.DifferenceType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IntraLineDiffTest {
+    private static final int MAX_LINE_LENGTH = 100;
+
+    @Test
+    public void changedWordIsMarkedAsWhole() {
+        LineChange change = diffLine("the quick brown fox", "the slow brown fox", IntraLineGranularity.WORD);
+
+        assertThat(change.getDeleted()).containsExactly(new TextRange(4, 9));
+        assertThat(change.getInserted()).containsExactly(new TextRange(4, 8));
+        assertThat(change.isWholeLine()).isFalse();
+    }
+
+    @Test
+    public void numbersAreComparedAsWords() {
+        LineChange change = diffLine("value = 42;", "value = 43;", IntraLineGranularity.WORD);
+
+        assertThat(change.getDeleted()).containsExactly(new TextRange(8, 10));
+        assertThat(change.getInserted()).containsExactly(new TextRange(8, 10));
+    }
+
+    @Test
+    public void changedCharactersAreMarkedSeparately() {
+        LineChange change = diffLine("kitten", "sitting", IntraLineGranularity.CHARACTER);
+
+        assertThat(change.getDeleted()).containsExactly(new TextRange(0, 1), new TextRange(4, 5));
+        assertThat(change.getInserted()).containsExactly(new TextRange(0, 1), new TextRange(4, 5), new TextRange(6, 7));
+    }
+
+    @Test
+    public void charactersOutsideOfBasicPlaneAreNotSplit() {
+        LineChange change = diffLine("a\uD83D\uDE00b", "a\uD83D\uDE01b", IntraLineGranularity.CHARACTER);
+
+        assertThat(change.getDeleted()).containsExactly(new TextRange(1, 3));
+        assertThat(change.getInserted()).containsExactly(new TextRange(1, 3));
+    }
+
+    @Test
+    public void equalLinesHaveNoChangedParts() {
+        LineChange change = diffLine("unchanged line", "unchanged line", IntraLineGranularity.WORD);
+
+        assertThat(change.getDeleted()).isEmpty();
+        assertThat(change.getInserted()).isEmpty();
+    }
+
+    @Test
+    public void linesArePairedInOrderWithTheirPositions() {
+        List<LineChange> changes = IntraLineDiff.diff(modification(10, 2, 12, 3), Arrays.asList("a b", "c"),
+                Arrays.asList("a x", "c", "d"), IntraLineGranularity.WORD, MAX_LINE_LENGTH);
+
+        assertThat(changes).hasSize(2);
+        assertThat(changes.get(0).getPreviousLine()).isEqualTo(10);
+        assertThat(changes.get(0).getCurrentLine()).isEqualTo(12);
+        assertThat(changes.get(0).getDeleted()).containsExactly(new TextRange(2, 3));
+        assertThat(changes.get(1).getPreviousLine()).isEqualTo(11);
+        assertThat(changes.get(1).getCurrentLine()).isEqualTo(13);
+        assertThat(changes.get(1).getDeleted()).isEmpty();
+        assertThat(changes.get(1).getInserted()).isEmpty();
+    }
+
+    @Test
+    public void overLengthLinesAreChangedAsWhole() {
+        List<LineChange> changes = IntraLineDiff.diff(modification(0, 2, 0, 2), Arrays.asList("abcdef", ""),
+                Arrays.asList("abc", "x"), IntraLineGranularity.CHARACTER, 5);
+
+        assertThat(changes.get(0).isWholeLine()).isTrue();
+        assertThat(changes.get(0).getDeleted()).containsExactly(new TextRange(0, 6));
+        assertThat(changes.get(0).getInserted()).containsExactly(new TextRange(0, 3));
+        assertThat(changes.get(1).isWholeLine()).isFalse();
+        assertThat(changes.get(1).getDeleted()).isEmpty();
+        assertThat(changes.get(1).getInserted()).containsExactly(new TextRange(0, 1));
+    }
+
+    @Test
+    public void emptyLineChangedToOverLengthOneHasNoDeletedParts() {
+        LineChange change = IntraLineDiff.diff(modification(0, 1, 0, 1), Collections.singletonList(""),
+                Collections.singletonList("abcdef"), IntraLineGranularity.WORD, 5).get(0);
+
+        assertThat(change.isWholeLine()).isTrue();
+        assertThat(change.getDeleted()).isEmpty();
+        assertThat(change.getInserted()).containsExactly(new TextRange(0, 6));
+    }
+
+    @Test
+    public void linesComparedAfterBudgetIsExceededAreChangedAsWhole() {
+        String previousLine = "ab".repeat(20_000);
+        String currentLine = "ba".repeat(20_000);
+
+        List<LineChange> changes = IntraLineDiff.diff(modification(0, 3, 0, 3),
+                Arrays.asList("a b", previousLine, "c d"), Arrays.asList("a x", currentLine, "c e"),
+                IntraLineGranularity.CHARACTER, 100_000, new DiffBudget(1, null));
+
+        assertThat(changes).extracting(LineChange::isWholeLine).containsExactly(false, true, true);
+        assertThat(changes.get(1).getDeleted()).containsExactly(new TextRange(0, previousLine.length()));
+        assertThat(changes.get(2).getInserted()).containsExactly(new TextRange(0, 3));
+    }
+
+    @Test
+    public void longLinesAreComparedWithoutBudget() {
+        List<LineChange> changes = IntraLineDiff.diff(modification(0, 1, 0, 1),
+                Collections.singletonList("ab".repeat(20_000)), Collections.singletonList("ba".repeat(20_000)),
+                IntraLineGranularity.CHARACTER, 100_000);
+
+        assertThat(changes.get(0).isWholeLine()).isFalse();
+    }
+
+    private static LineChange diffLine(String previousLine, String currentLine, IntraLineGranularity granularity) {
+        List<LineChange> changes = IntraLineDiff.diff(modification(0, 1, 0, 1),
+                Collections.singletonList(previousLine), Collections.singletonList(currentLine), granularity,
+                MAX_LINE_LENGTH);
+        assertThat(changes).hasSize(1);
+        return changes.get(0);
+    }
+
+    private static Difference modification(int previousStart, int previousSize, int newStart, int newSize) {
+        Difference difference = new Difference();
+        difference.setPreviousSectionStart(previousStart);
+        difference.setPreviousSectionSize(previousSize);
+        difference.setNewSectionStart(newStart);
+        difference.setNewSectionSize(newSize);
+        difference.setDifferenceType(DifferenceType.MODIFICATION);
+        return difference;
+    }
+}
@@ -0,0 +1,205 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Difference;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.DifferenceType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(Parameterized.class)
+public class LineDiffAlgorithmTest {
+    private final Supplier<LineDiffAlgorithm> algorithmSupplier;
+    private final LineDiffAlgorithm myers = new MyersLineDiffAlgorithm();
+    private LineDiffAlgorithm algorithm;
+
+    public LineDiffAlgorithmTest(String name, Supplier<LineDiffAlgorithm> algorithmSupplier) {
+        this.algorithmSupplier = algorithmSupplier;
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static List<Object[]> algorithms() {
+        return Arrays.asList(
+                new Object[]{"histogram", (Supplier<LineDiffAlgorithm>) HistogramLineDiffAlgorithm::new},
+                new Object[]{"anchor", (Supplier<LineDiffAlgorithm>) AnchorLineDiffAlgorithm::new},
+                new Object[]{"parallel", (Supplier<LineDiffAlgorithm>) () ->
+                        new ParallelLineDiffAlgorithm(new HistogramLineDiffAlgorithm(), 2, 0, 2)});
+    }
+
+    @Before
+    public void createAlgorithm() {
+        algorithm = algorithmSupplier.get();
+    }
+
+    @After
+    public void closeAlgorithm() throws Exception {
+        if (algorithm instanceof AutoCloseable) {
+            ((AutoCloseable) algorithm).close();
+        }
+    }
+
+    @Test
+    public void emptyVersionsHaveNoDifferences() {
+        assertAgreesWithMyers(Collections.emptyList(), Collections.emptyList());
+        assertThat(algorithm.diff(Collections.emptyList(), Collections.emptyList())).isEmpty();
+    }
+
+    @Test
+    public void versionCreatedFromEmptyOneIsSingleInsertion() {
+        List<String> current = lines("a", "b", "c");
+
+        assertAgreesWithMyers(Collections.emptyList(), current);
+        assertThat(algorithm.diff(Collections.emptyList(), current))
+                .containsExactly(difference(0, 0, 0, 3, DifferenceType.INSERT));
+    }
+
+    @Test
+    public void emptiedVersionIsSingleDeletion() {
+        List<String> previous = lines("a", "b", "c");
+
+        assertAgreesWithMyers(previous, Collections.emptyList());
+        assertThat(algorithm.diff(previous, Collections.emptyList()))
+                .containsExactly(difference(0, 3, 0, 0, DifferenceType.DELETE));
+    }
+
+    @Test
+    public void identicalVersionsHaveNoDifferences() {
+        List<String> lines = lines("a", "b", "a", "c");
+
+        assertAgreesWithMyers(lines, lines);
+        assertThat(algorithm.diff(lines, new ArrayList<>(lines))).isEmpty();
+    }
+
+    @Test
+    public void fullReplacementIsSingleModification() {
+        List<String> previous = lines("a", "b", "c");
+        List<String> current = lines("x", "y");
+
+        assertAgreesWithMyers(previous, current);
+        assertThat(algorithm.diff(previous, current))
+                .containsExactly(difference(0, 3, 0, 2, DifferenceType.MODIFICATION));
+    }
+
+    @Test
+    public void changesBetweenUniqueLinesAreFound() {
+        List<String> previous = lines("a", "b", "c", "d", "e", "f");
+        List<String> current = lines("a", "x", "c", "d", "f", "g");
+
+        assertAgreesWithMyers(previous, current);
+        assertThat(algorithm.diff(previous, current)).isEqualTo(myers.diff(previous, current));
+    }
+
+    @Test
+    public void repeatedLinesProduceValidEditScript() {
+        List<String> previous = lines("}", "}", "a", "}", "", "}", "b", "", "}");
+        List<String> current = lines("}", "a", "}", "}", "", "c", "}", "", "}", "}");
+
+        assertAgreesWithMyers(previous, current);
+    }
+
+    @Test
+    public void onlyRepeatedLinesProduceValidEditScript() {
+        List<String> previous = Collections.nCopies(50, "x");
+        List<String> current = Collections.nCopies(70, "x");
+
+        assertAgreesWithMyers(previous, current);
+        assertThat(algorithm.diff(previous, current)).hasSize(1);
+    }
+
+    @Test
+    public void randomVersionsProduceValidEditScripts() {
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            List<String> previous = randomLines(random);
+            List<String> current = mutate(previous, random);
+
+            assertAgreesWithMyers(previous, current);
+        }
+    }
+
+    private void assertAgreesWithMyers(List<String> previous, List<String> current) {
+        assertValidEditScript(previous, current, myers.diff(previous, current));
+        assertValidEditScript(previous, current, algorithm.diff(previous, current));
+    }
+
+    /**
+     * Checks, that differences are ordered, disjoint, of types matching their sizes and that lines between them are
+     * the same in both versions.
+     */
+    private static void assertValidEditScript(List<String> previous, List<String> current,
+                                              List<Difference> differences) {
+        int previousPosition = 0;
+        int currentPosition = 0;
+        for (Difference difference : differences) {
+            int unchanged = difference.getPreviousSectionStart() - previousPosition;
+            assertThat(unchanged).isGreaterThanOrEqualTo(0);
+            assertThat(difference.getNewSectionStart() - currentPosition).isEqualTo(unchanged);
+            assertThat(current.subList(currentPosition, difference.getNewSectionStart()))
+                    .isEqualTo(previous.subList(previousPosition, difference.getPreviousSectionStart()));
+            assertThat(difference.getDifferenceType()).isEqualTo(expectedType(difference));
+            previousPosition = difference.getPreviousSectionStart() + difference.getPreviousSectionSize();
+            currentPosition = difference.getNewSectionStart() + difference.getNewSectionSize();
+        }
+        assertThat(previous.size() - previousPosition).isEqualTo(current.size() - currentPosition);
+        assertThat(current.subList(currentPosition, current.size()))
+                .isEqualTo(previous.subList(previousPosition, previous.size()));
+    }
+
+    private static DifferenceType expectedType(Difference difference) {
+        assertThat(difference.getPreviousSectionSize() + difference.getNewSectionSize()).isPositive();
+        if (difference.getPreviousSectionSize() == 0) {
+            return DifferenceType.INSERT;
+        }
+        return difference.getNewSectionSize() == 0 ? DifferenceType.DELETE : DifferenceType.MODIFICATION;
+    }
+
+    private static List<String> randomLines(Random random) {
+        return IntStream.range(0, random.nextInt(40))
+                .mapToObj(i -> randomLine(random))
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> mutate(List<String> lines, Random random) {
+        List<String> mutated = new ArrayList<>(lines);
+        for (int i = random.nextInt(6); i > 0; i--) {
+            int position = random.nextInt(mutated.size() + 1);
+            if (random.nextBoolean() || position == mutated.size()) {
+                mutated.add(position, randomLine(random));
+            } else {
+                mutated.remove(position);
+            }
+        }
+        return mutated;
+    }
+
+    private static String randomLine(Random random) {
+        return String.valueOf((char) ('a' + random.nextInt(6)));
+    }
+
+    private static List<String> lines(String... lines) {
+        return Arrays.asList(lines);
+    }
+
+    private static Difference difference(int previousStart, int previousSize, int newStart, int newSize,
+                                         DifferenceType type) {
+        Difference difference = new Difference();
+        difference.setPreviousSectionStart(previousStart);
+        difference.setPreviousSectionSize(previousSize);
+        difference.setNewSectionStart(newStart);
+        difference.setNewSectionSize(newSize);
+        difference.setDifferenceType(type);
+        return difference;
+    }
+}
@@ -0,0 +1,63 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.diff;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SizeBoundedCacheTest {
+    private final AtomicLong maxSize = new AtomicLong(10);
+    private final SizeBoundedCache<String, String> cache = new SizeBoundedCache<>(String::length, maxSize::get);
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvictedWhenLimitIsExceeded() {
+        cache.put("a", "aaaa");
+        cache.put("b", "bbb");
+        cache.put("c", "ccc");
+        cache.get("a");
+
+        cache.put("d", "dd");
+
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isEqualTo("aaaa");
+        assertThat(cache.get("c")).isEqualTo("ccc");
+        assertThat(cache.get("d")).isEqualTo("dd");
+    }
+
+    @Test
+    public void valueBiggerThanLimitIsNotCached() {
+        cache.put("a", "aaaa");
+
+        cache.put("b", "bbbbbbbbbbb");
+
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isEqualTo("aaaa");
+    }
+
+    @Test
+    public void replacedValueIsNotCountedTwice() {
+        cache.put("a", "aaaaaaaa");
+        cache.put("a", "a");
+
+        cache.put("b", "bbbbbbbbb");
+
+        assertThat(cache.get("a")).isEqualTo("a");
+        assertThat(cache.get("b")).isEqualTo("bbbbbbbbb");
+    }
+
+    @Test
+    public void loweredLimitIsAppliedOnNextInsertion() {
+        cache.put("a", "aaa");
+        cache.put("b", "bbb");
+        cache.put("c", "ccc");
+        maxSize.set(4);
+
+        cache.put("d", "d");
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isEqualTo("ccc");
+        assertThat(cache.get("d")).isEqualTo("d");
+    }
+}
@@ -0,0 +1,165 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.extraction;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.tika.Tika;
+import org.apache.tika.config.TikaConfig;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.ParsingConfig;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.TikaConfiguration;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ExtractionCacheEntry;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.ExtractionCacheEntryRepository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.util.unit.DataSize.ofBytes;
+
+public class ExtractionCacheTest {
+    private static final String CHECK_SUM = "check-sum";
+    private static final List<String> LINES = Arrays.asList("first", "", "third");
+
+    private final ExtractionCacheEntryRepository repository = mock(ExtractionCacheEntryRepository.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TikaConfig tikaConfig;
+    private Tika tika;
+
+    @Before
+    public void setUp() throws Exception {
+        tikaConfig = new TikaConfiguration().tikaConfig();
+        tika = new Tika(tikaConfig);
+        when(repository.findById(anyString())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    public void linesAreReadFromMemoryTier() throws Exception {
+        ExtractionCache cache = createCache(new ParsingConfig(), tikaConfig);
+        write(cache, LINES);
+
+        assertThat(cache.get(CHECK_SUM)).contains(LINES);
+        verify(repository, never()).findById(any());
+        assertThat(count("memory", "hit")).isEqualTo(1);
+    }
+
+    @Test
+    public void linesAreReadFromPersistentTierAndKeptInMemory() throws Exception {
+        ExtractionCacheEntry entry = write(createCache(new ParsingConfig(), tikaConfig), LINES);
+        when(repository.findById(entry.getKey())).thenReturn(Optional.of(entry));
+        ExtractionCache cache = createCache(new ParsingConfig(), tikaConfig);
+
+        assertThat(cache.get(CHECK_SUM)).contains(LINES);
+        assertThat(cache.get(CHECK_SUM)).contains(LINES);
+
+        verify(repository, times(1)).findById(entry.getKey());
+        assertThat(count("memory", "miss")).isEqualTo(1);
+        assertThat(count("persistent", "hit")).isEqualTo(1);
+        assertThat(count("memory", "hit")).isEqualTo(1);
+    }
+
+    @Test
+    public void singleEmptyLineIsReadFromPersistentTier() throws Exception {
+        List<String> lines = Collections.singletonList("");
+        ExtractionCacheEntry entry = write(createCache(new ParsingConfig(), tikaConfig), lines);
+        when(repository.findById(entry.getKey())).thenReturn(Optional.of(entry));
+
+        assertThat(createCache(new ParsingConfig(), tikaConfig).get(CHECK_SUM)).contains(lines);
+    }
+
+    @Test
+    public void linesNotFittingInMemoryArePersistedOnly() throws Exception {
+        ParsingConfig parsingConfig = new ParsingConfig();
+        parsingConfig.getCache().setMemorySize(ofBytes(50));
+        ExtractionCache cache = createCache(parsingConfig, tikaConfig);
+        ExtractionCacheEntry entry = write(cache, LINES);
+        when(repository.findById(entry.getKey())).thenReturn(Optional.of(entry));
+
+        assertThat(cache.get(CHECK_SUM)).contains(LINES);
+        assertThat(count("memory", "miss")).isEqualTo(1);
+        assertThat(count("persistent", "hit")).isEqualTo(1);
+    }
+
+    @Test
+    public void linesBiggerThanPersistedLimitAreNotPersisted() throws Exception {
+        ParsingConfig parsingConfig = new ParsingConfig();
+        parsingConfig.getCache().setMaxPersistedSize(ofBytes(1));
+        ExtractionCache cache = createCache(parsingConfig, tikaConfig);
+
+        ExtractionCache.Writer writer = cache.openWriter(CHECK_SUM);
+        LINES.forEach(writer);
+        writer.commit();
+
+        verify(repository, never()).insert(any(ExtractionCacheEntry.class));
+        assertThat(cache.get(CHECK_SUM)).contains(LINES);
+    }
+
+    @Test
+    public void disabledCacheKeepsNothing() throws Exception {
+        ParsingConfig parsingConfig = new ParsingConfig();
+        parsingConfig.getCache().setEnabled(false);
+        ExtractionCache cache = createCache(parsingConfig, tikaConfig);
+
+        ExtractionCache.Writer writer = cache.openWriter(CHECK_SUM);
+        LINES.forEach(writer);
+        writer.commit();
+
+        assertThat(cache.get(CHECK_SUM)).isEmpty();
+        verify(repository, never()).insert(any(ExtractionCacheEntry.class));
+    }
+
+    @Test
+    public void sameConfigurationGivesSameKey() throws Exception {
+        String key = write(createCache(new ParsingConfig(), tikaConfig), LINES).getKey();
+
+        assertThat(write(createCache(new ParsingConfig(), tikaConfig), LINES).getKey()).isEqualTo(key);
+    }
+
+    @Test
+    public void forkedParsingGivesOtherKey() throws Exception {
+        ParsingConfig forkedParsingConfig = new ParsingConfig();
+        forkedParsingConfig.getFork().setEnabled(true);
+
+        String key = write(createCache(new ParsingConfig(), tikaConfig), LINES).getKey();
+
+        assertThat(write(createCache(forkedParsingConfig, tikaConfig), LINES).getKey()).isNotEqualTo(key);
+    }
+
+    @Test
+    public void otherParsersGiveOtherKey() throws Exception {
+        String key = write(createCache(new ParsingConfig(), tikaConfig), LINES).getKey();
+
+        assertThat(write(createCache(new ParsingConfig(), TikaConfig.getDefaultConfig()), LINES).getKey())
+                .isNotEqualTo(key);
+    }
+
+    private ExtractionCache createCache(ParsingConfig parsingConfig, TikaConfig tikaConfig) throws Exception {
+        ExtractionCache cache = new ExtractionCache(parsingConfig, repository, tika, tikaConfig, meterRegistry);
+        cache.computeTikaFingerprint();
+        return cache;
+    }
+
+    /**
+     * Writes lines to cache and returns entry persisted by it.
+     */
+    private ExtractionCacheEntry write(ExtractionCache cache, List<String> lines) {
+        clearInvocations(repository);
+        ExtractionCache.Writer writer = cache.openWriter(CHECK_SUM);
+        lines.forEach(writer);
+        writer.commit();
+        ArgumentCaptor<ExtractionCacheEntry> entry = ArgumentCaptor.forClass(ExtractionCacheEntry.class);
+        verify(repository).insert(entry.capture());
+        clearInvocations(repository);
+        return entry.getValue();
+    }
+
+    private double count(String tier, String result) {
+        return meterRegistry.counter("dws.extraction.cache", "tier", tier, "result", result).count();
+    }
+}
@@ -0,0 +1,213 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.impl;
+
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatcher;
+import org.mockito.verification.VerificationMode;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.StorageConfig;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ContentBlob;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.ContentBlobRepository;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.BlobStore;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.CheckSums;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.ColdBlobStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ContentStorageServiceImplTest {
+    private static final String STAGED_BLOB_ID = "staged";
+    private static final String DELTA_BLOB_ID = "delta";
+    private static final String BASE_BLOB_ID = "base";
+
+    private final MongoOperations mongoOperations = mock(MongoOperations.class);
+    private final ContentBlobRepository contentBlobRepository = mock(ContentBlobRepository.class);
+    private final BlobStore blobStore = mock(BlobStore.class);
+    private final StorageConfig storageConfig = new StorageConfig();
+    private final byte[] base = new byte[4096];
+    private final byte[] content = new byte[4096];
+    private ContentStorageServiceImpl contentStorageService;
+    private String baseCheckSum;
+    private String checkSum;
+
+    @Before
+    public void setUp() throws Exception {
+        contentStorageService = new ContentStorageServiceImpl(mongoOperations, contentBlobRepository, blobStore,
+                storageConfig, mock(ColdBlobStore.class), new SimpleMeterRegistry());
+        new Random(42).nextBytes(base);
+        System.arraycopy(base, 0, content, 0, base.length);
+        content[100] ^= 1;
+        baseCheckSum = CheckSums.calculate(base);
+        checkSum = CheckSums.calculate(content);
+
+        when(blobStore.store(eq("upload"), any())).thenAnswer(invocation -> {
+            invocation.<InputStream>getArgument(1).readAllBytes();
+            return STAGED_BLOB_ID;
+        });
+        when(blobStore.store(eq(checkSum), any())).thenReturn(DELTA_BLOB_ID);
+        when(blobStore.open(STAGED_BLOB_ID)).thenAnswer(invocation -> new ByteArrayInputStream(content));
+        when(blobStore.open(BASE_BLOB_ID)).thenAnswer(invocation -> new ByteArrayInputStream(base));
+        when(mongoOperations.updateFirst(any(Query.class), any(Update.class), eq(ContentBlob.class)))
+                .thenReturn(modified(0));
+    }
+
+    @Test
+    public void retainedContentDoesNotKeepStagedBlob() throws Exception {
+        retainSucceeds(checkSum);
+
+        assertThat(store(null)).isEqualTo(checkSum);
+
+        verify(blobStore).delete(STAGED_BLOB_ID);
+        verify(mongoOperations, never()).insert(any(ContentBlob.class));
+    }
+
+    @Test
+    public void insertedContentKeepsStagedBlobWithSingleReference() throws Exception {
+        assertThat(store(null)).isEqualTo(checkSum);
+
+        verify(mongoOperations).insert(argThat((ContentBlob contentBlob) -> contentBlob.getReferenceCount() == 1
+                && STAGED_BLOB_ID.equals(contentBlob.getBlobId()) && contentBlob.getBaseCheckSum() == null));
+        verify(blobStore, never()).delete(any());
+    }
+
+    @Test
+    public void insertedDeltaKeepsReferenceToItsBase() throws Exception {
+        enableDeltaBase();
+
+        assertThat(store(baseCheckSum)).isEqualTo(checkSum);
+
+        verify(mongoOperations).insert(argThat((ContentBlob contentBlob) -> contentBlob.getReferenceCount() == 1
+                && DELTA_BLOB_ID.equals(contentBlob.getBlobId())
+                && baseCheckSum.equals(contentBlob.getBaseCheckSum())));
+        verify(blobStore).delete(STAGED_BLOB_ID);
+        verify(blobStore, never()).delete(DELTA_BLOB_ID);
+        verifyReleased(baseCheckSum, never());
+    }
+
+    @Test
+    public void contentStoredConcurrentlyAsDeltaReleasesItsBase() throws Exception {
+        enableDeltaBase();
+        doThrow(new DuplicateKeyException("duplicate")).doReturn(null).when(mongoOperations).insert(any());
+        when(mongoOperations.updateFirst(argThat(hasCheckSum(checkSum)), any(Update.class), eq(ContentBlob.class)))
+                .thenReturn(modified(0), modified(1));
+
+        assertThat(store(baseCheckSum)).isEqualTo(checkSum);
+
+        verify(blobStore).delete(DELTA_BLOB_ID);
+        verifyReleased(baseCheckSum, times(1));
+    }
+
+    @Test
+    public void exhaustedAttemptsReleaseStagedBlob() throws Exception {
+        doThrow(new DuplicateKeyException("duplicate")).when(mongoOperations).insert(any());
+
+        assertThatThrownBy(() -> store(null)).isInstanceOf(IllegalStateException.class);
+
+        verify(blobStore).delete(STAGED_BLOB_ID);
+    }
+
+    @Test
+    public void exhaustedAttemptsReleaseDeltaAndItsBase() throws Exception {
+        enableDeltaBase();
+        doThrow(new DuplicateKeyException("duplicate")).when(mongoOperations).insert(any());
+
+        assertThatThrownBy(() -> store(baseCheckSum)).isInstanceOf(IllegalStateException.class);
+
+        verify(blobStore).delete(STAGED_BLOB_ID);
+        verify(blobStore).delete(DELTA_BLOB_ID);
+        verifyReleased(baseCheckSum, times(1));
+    }
+
+    @Test
+    public void failedDeltaEncodingReleasesItsBase() throws Exception {
+        enableDeltaBase();
+        when(blobStore.open(BASE_BLOB_ID)).thenThrow(new FileNotFoundException(BASE_BLOB_ID));
+
+        assertThatThrownBy(() -> store(baseCheckSum)).isInstanceOf(FileNotFoundException.class);
+
+        verify(blobStore).delete(STAGED_BLOB_ID);
+        verifyReleased(baseCheckSum, times(1));
+    }
+
+    @Test
+    public void releasedLastReferenceDeletesBlobAndReleasesItsBase() {
+        ContentBlob contentBlob = new ContentBlob();
+        contentBlob.setCheckSum(checkSum);
+        contentBlob.setBlobId(DELTA_BLOB_ID);
+        contentBlob.setBaseCheckSum(baseCheckSum);
+        when(mongoOperations.findAndModify(argThat(hasCheckSum(checkSum)), any(Update.class),
+                any(FindAndModifyOptions.class), eq(ContentBlob.class))).thenReturn(contentBlob);
+        when(mongoOperations.remove(argThat(hasCheckSum(checkSum)), eq(ContentBlob.class)))
+                .thenReturn(DeleteResult.acknowledged(1));
+
+        contentStorageService.release(checkSum);
+
+        verify(blobStore).delete(DELTA_BLOB_ID);
+        verifyReleased(baseCheckSum, times(1));
+    }
+
+    @Test
+    public void releasedReferenceKeepsStillReferencedBlob() {
+        ContentBlob contentBlob = new ContentBlob();
+        contentBlob.setCheckSum(checkSum);
+        contentBlob.setBlobId(STAGED_BLOB_ID);
+        contentBlob.setReferenceCount(1);
+        when(mongoOperations.findAndModify(argThat(hasCheckSum(checkSum)), any(Update.class),
+                any(FindAndModifyOptions.class), eq(ContentBlob.class))).thenReturn(contentBlob);
+
+        contentStorageService.release(checkSum);
+
+        verify(mongoOperations, never()).remove(any(Query.class), eq(ContentBlob.class));
+        verify(blobStore, never()).delete(any());
+    }
+
+    private String store(String baseCheckSum) throws Exception {
+        return contentStorageService.store(new ByteArrayInputStream(content), baseCheckSum, null);
+    }
+
+    private void enableDeltaBase() {
+        storageConfig.getDelta().setEnabled(true);
+        ContentBlob baseBlob = new ContentBlob();
+        baseBlob.setCheckSum(baseCheckSum);
+        baseBlob.setBlobId(BASE_BLOB_ID);
+        baseBlob.setSize(base.length);
+        baseBlob.setReferenceCount(1);
+        when(contentBlobRepository.findById(baseCheckSum)).thenReturn(Optional.of(baseBlob));
+        retainSucceeds(baseCheckSum);
+    }
+
+    private void retainSucceeds(String checkSum) {
+        when(mongoOperations.updateFirst(argThat(hasCheckSum(checkSum)), any(Update.class), eq(ContentBlob.class)))
+                .thenReturn(modified(1));
+    }
+
+    private void verifyReleased(String checkSum, VerificationMode mode) {
+        verify(mongoOperations, mode).findAndModify(argThat(hasCheckSum(checkSum)), any(Update.class),
+                any(FindAndModifyOptions.class), eq(ContentBlob.class));
+    }
+
+    private static ArgumentMatcher<Query> hasCheckSum(String checkSum) {
+        return query -> query != null && checkSum.equals(query.getQueryObject().get("checkSum"));
+    }
+
+    private static UpdateResult modified(long count) {
+        return UpdateResult.acknowledged(count, count, null);
+    }
+}
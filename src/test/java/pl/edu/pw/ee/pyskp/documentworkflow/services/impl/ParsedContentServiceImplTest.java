@@ -0,0 +1,165 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.impl;
+
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.StorageConfig;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.FileMetadata;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ParsedContentChunk;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.StorageTier;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Version;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.ParsedContentChunkRepository;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.VersionRepository;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.ColdBlobStore;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.CompressionCodec;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.storage.JoinedLines;
+
+import java.io.ByteArrayInputStream;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ParsedContentServiceImplTest {
+    private static final String COLD_BLOB_ID = "cold-blob";
+    private static final List<String> LINES = Arrays.asList("first", "second", "", "fourth", "fifth");
+
+    private final MongoOperations mongoOperations = mock(MongoOperations.class);
+    private final ParsedContentChunkRepository chunkRepository = mock(ParsedContentChunkRepository.class);
+    private final VersionRepository versionRepository = mock(VersionRepository.class);
+    private final ColdBlobStore coldBlobStore = mock(ColdBlobStore.class);
+    private final Map<Integer, ParsedContentChunk> storedChunks = new TreeMap<>();
+    private ParsedContentServiceImpl parsedContentService;
+    private Version version;
+
+    @Before
+    public void setUp() throws Exception {
+        StorageConfig storageConfig = new StorageConfig();
+        storageConfig.getParsedContent().setChunkSize(2);
+        parsedContentService = new ParsedContentServiceImpl(storageConfig, mongoOperations, chunkRepository,
+                versionRepository, coldBlobStore, new SimpleMeterRegistry());
+
+        FileMetadata file = new FileMetadata();
+        file.setId(new ObjectId());
+        version = new Version();
+        version.setId(new ObjectId());
+        version.setFile(file);
+        version.setTier(StorageTier.COLD);
+        version.setColdParsedFileContentBlobId(COLD_BLOB_ID);
+        version.setLineCount(LINES.size());
+
+        when(coldBlobStore.open(COLD_BLOB_ID))
+                .thenAnswer(invocation -> new ByteArrayInputStream(JoinedLines.join(LINES)));
+        when(mongoOperations.upsert(any(Query.class), any(Update.class), eq(ParsedContentChunk.class)))
+                .thenAnswer(invocation -> {
+                    storeChunk(invocation.getArgument(0), invocation.getArgument(1));
+                    return UpdateResult.acknowledged(0, 0L, null);
+                });
+        when(chunkRepository.findByVersionIdOrderByChunkIndex(version.getId()))
+                .thenAnswer(invocation -> new ArrayList<>(storedChunks.values()));
+    }
+
+    @Test
+    public void coldVersionIsPromotedOnceWhenReadTwice() throws Exception {
+        promotionSucceeds(true);
+
+        assertThat(parsedContentService.getParsedFileContent(version)).isEqualTo(LINES);
+        assertThat(parsedContentService.getParsedFileContent(version)).isEqualTo(LINES);
+
+        verify(coldBlobStore, times(1)).open(COLD_BLOB_ID);
+        verify(coldBlobStore).delete(COLD_BLOB_ID);
+        assertThat(version.getTier()).isNotEqualTo(StorageTier.COLD);
+        assertThat(version.getColdParsedFileContentBlobId()).isNull();
+        assertThat(version.getChunkSize()).isEqualTo(2);
+        assertThat(version.getLineCount()).isEqualTo(LINES.size());
+    }
+
+    @Test
+    public void versionPromotedConcurrentlyIsReadFromHotTier() throws Exception {
+        promotionSucceeds(false);
+        Version promoted = new Version();
+        promoted.setId(version.getId());
+        promoted.setLineCount(LINES.size());
+        promoted.setChunkSize(2);
+        when(versionRepository.findById(version.getId())).thenReturn(Optional.of(promoted));
+
+        assertThat(parsedContentService.getParsedFileContent(version)).isEqualTo(LINES);
+        assertThat(parsedContentService.getParsedFileContent(version)).isEqualTo(LINES);
+
+        verify(coldBlobStore, times(1)).open(COLD_BLOB_ID);
+        verify(coldBlobStore, never()).delete(any());
+        verify(chunkRepository, never()).deleteByVersionId(any());
+        assertThat(version.getTier()).isNotEqualTo(StorageTier.COLD);
+        assertThat(version.getColdParsedFileContentBlobId()).isNull();
+    }
+
+    @Test
+    public void chunksOfVersionWhichStayedColdAreDeleted() throws Exception {
+        promotionSucceeds(false);
+        Version demoted = new Version();
+        demoted.setId(version.getId());
+        demoted.setTier(StorageTier.COLD);
+        demoted.setColdParsedFileContentBlobId("other-cold-blob");
+        when(versionRepository.findById(version.getId())).thenReturn(Optional.of(demoted));
+
+        assertThat(parsedContentService.getParsedFileContentLines(version, 1, 3)).containsExactly("second", "");
+
+        verify(chunkRepository).deleteByVersionId(version.getId());
+        verify(coldBlobStore, never()).delete(any());
+        assertThat(version.getColdParsedFileContentBlobId()).isEqualTo("other-cold-blob");
+    }
+
+    @Test
+    public void singleEmptyLineIsPromotedFromColdTier() throws Exception {
+        promotionSucceeds(true);
+        version.setLineCount(1);
+        when(coldBlobStore.open(COLD_BLOB_ID))
+                .thenAnswer(invocation -> new ByteArrayInputStream(JoinedLines.join(Collections.singletonList(""))));
+
+        assertThat(parsedContentService.getParsedFileContent(version)).containsExactly("");
+        assertThat(parsedContentService.getParsedFileContent(version)).containsExactly("");
+    }
+
+    @Test
+    public void compressedChunkWithSingleEmptyLineIsRead() throws Exception {
+        version.setTier(null);
+        version.setColdParsedFileContentBlobId(null);
+        version.setLineCount(3);
+        version.setChunkSize(2);
+        ParsedContentChunk firstChunk = new ParsedContentChunk();
+        firstChunk.setChunkIndex(0);
+        firstChunk.setLines(Arrays.asList("first", "second"));
+        ParsedContentChunk lastChunk = new ParsedContentChunk();
+        lastChunk.setChunkIndex(1);
+        lastChunk.setCodec(CompressionCodec.DEFLATE);
+        lastChunk.setCompressedLines(
+                CompressionCodec.DEFLATE.compress(JoinedLines.join(Collections.singletonList(""))));
+        storedChunks.put(0, firstChunk);
+        storedChunks.put(1, lastChunk);
+
+        assertThat(parsedContentService.getParsedFileContent(version)).containsExactly("first", "second", "");
+    }
+
+    private void promotionSucceeds(boolean succeeds) {
+        long modifiedCount = succeeds ? 1 : 0;
+        when(mongoOperations.updateFirst(any(Query.class), any(Update.class), eq(Version.class)))
+                .thenReturn(UpdateResult.acknowledged(modifiedCount, modifiedCount, null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void storeChunk(Query query, Update update) {
+        ParsedContentChunk chunk = new ParsedContentChunk();
+        chunk.setVersionId(version.getId());
+        chunk.setChunkIndex((Integer) query.getQueryObject().get("chunkIndex"));
+        chunk.setLines(new ArrayList<>((List<String>) ((Document) update.getUpdateObject().get("$set")).get("lines")));
+        storedChunks.put(chunk.getChunkIndex(), chunk);
+    }
+}
@@ -0,0 +1,176 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.impl;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.StorageConfig;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ContentBlob;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.FileMetadata;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.StorageTier;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Version;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.VersionRepository;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.ContentStorageService;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.ParsedContentService;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class TieringServiceImplTest {
+    private static final FileMetadata FILE = createFile();
+    private static long lastSaveTime;
+
+    private final StorageConfig storageConfig = new StorageConfig();
+    private final MongoOperations mongoOperations = mock(MongoOperations.class);
+    private final VersionRepository versionRepository = mock(VersionRepository.class);
+    private final ParsedContentService parsedContentService = mock(ParsedContentService.class);
+    private final ContentStorageService contentStorageService = mock(ContentStorageService.class);
+    private final TieringServiceImpl tieringService = new TieringServiceImpl(storageConfig, mongoOperations,
+            versionRepository, parsedContentService, contentStorageService);
+
+    @Before
+    public void setUp() throws IOException {
+        storageConfig.getTiering().setMinAge(Duration.ofDays(30));
+        storageConfig.getTiering().setKeepLatest(2);
+        when(parsedContentService.moveToColdTier(any())).thenReturn(true);
+        when(contentStorageService.moveToColdTier(any())).thenReturn(true);
+        streamVersions();
+        streamContents();
+    }
+
+    @Test
+    public void onlyInactiveVersionsAndContentsOutsideColdTierAreSelected() {
+        long before = System.currentTimeMillis();
+        tieringService.demoteInactiveData();
+        long after = System.currentTimeMillis();
+
+        Document versionsQuery = captureQuery(Version.class);
+        assertThat(versionsQuery.get("tier")).isEqualTo(new Document("$ne", StorageTier.COLD));
+        assertThat(versionsQuery.get("$or")).isInstanceOf(List.class);
+        assertThat((List<?>) versionsQuery.get("$or")).hasSize(2);
+        Date cutoff = (Date) ((Document) versionsQuery.get("saveDate")).get("$lt");
+        assertThat(cutoff).isBetween(new Date(before - Duration.ofDays(30).toMillis()),
+                new Date(after - Duration.ofDays(30).toMillis()), true, true);
+
+        Document contentsQuery = captureQuery(ContentBlob.class);
+        assertThat(contentsQuery.get("tier")).isEqualTo(new Document("$ne", StorageTier.COLD));
+        assertThat(contentsQuery).doesNotContainKey("saveDate");
+    }
+
+    @Test
+    public void latestVersionsOfFileAreKeptInHotTier() throws IOException {
+        Version older = createVersion();
+        Version secondLatest = createVersion();
+        Version latest = createVersion();
+        when(versionRepository.countByFile_IdAndSaveDateGreaterThan(FILE.getId(), latest.getSaveDate()))
+                .thenReturn(0L);
+        when(versionRepository.countByFile_IdAndSaveDateGreaterThan(FILE.getId(), secondLatest.getSaveDate()))
+                .thenReturn(1L);
+        when(versionRepository.countByFile_IdAndSaveDateGreaterThan(FILE.getId(), older.getSaveDate()))
+                .thenReturn(2L);
+        streamVersions(latest, secondLatest, older);
+
+        tieringService.demoteInactiveData();
+
+        verify(parsedContentService).moveToColdTier(older);
+        verify(parsedContentService, never()).moveToColdTier(latest);
+        verify(parsedContentService, never()).moveToColdTier(secondLatest);
+    }
+
+    @Test
+    public void contentsReferencedByHotVersionsAreKeptInHotTier() throws IOException {
+        when(versionRepository.existsByCheckSumAndTierNot("referenced", StorageTier.COLD)).thenReturn(true);
+        when(versionRepository.existsByCheckSumAndTierNot("unreferenced", StorageTier.COLD)).thenReturn(false);
+        streamContents("referenced", "unreferenced");
+
+        tieringService.demoteInactiveData();
+
+        verify(contentStorageService).moveToColdTier("unreferenced");
+        verify(contentStorageService, never()).moveToColdTier("referenced");
+    }
+
+    @Test
+    public void failedDemotionDoesNotStopOthers() throws IOException {
+        when(contentStorageService.moveToColdTier("failing")).thenThrow(new IOException("Disk full"));
+        streamContents("failing", "other");
+
+        tieringService.demoteInactiveData();
+
+        verify(contentStorageService).moveToColdTier("other");
+    }
+
+    @Test
+    public void scheduledDemotionIsSkippedWhenTieringIsDisabled() {
+        storageConfig.getTiering().setEnabled(false);
+
+        tieringService.scheduledDemotion();
+
+        verifyZeroInteractions(mongoOperations, parsedContentService, contentStorageService);
+    }
+
+    private Document captureQuery(Class<?> entityClass) {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoOperations).stream(query.capture(), eq(entityClass));
+        return query.getValue().getQueryObject();
+    }
+
+    private void streamVersions(Version... versions) {
+        when(mongoOperations.stream(any(Query.class), eq(Version.class))).thenReturn(iterate(versions));
+    }
+
+    private void streamContents(String... checkSums) {
+        ContentBlob[] contents = Arrays.stream(checkSums).map(checkSum -> {
+            ContentBlob content = new ContentBlob();
+            content.setCheckSum(checkSum);
+            return content;
+        }).toArray(ContentBlob[]::new);
+        when(mongoOperations.stream(any(Query.class), eq(ContentBlob.class))).thenReturn(iterate(contents));
+    }
+
+    private static Version createVersion() {
+        Version version = new Version();
+        version.setId(new ObjectId());
+        version.setFile(FILE);
+        version.setSaveDate(new Date(++lastSaveTime));
+        return version;
+    }
+
+    private static FileMetadata createFile() {
+        FileMetadata file = new FileMetadata();
+        file.setId(new ObjectId());
+        return file;
+    }
+
+    @SafeVarargs
+    private static <T> CloseableIterator<T> iterate(T... elements) {
+        Iterator<T> iterator = Arrays.asList(elements).iterator();
+        return new CloseableIterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
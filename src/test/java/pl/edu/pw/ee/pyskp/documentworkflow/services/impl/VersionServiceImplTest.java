@@ -0,0 +1,184 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoOperations;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.DiffConfig;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Difference;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.DifferenceType;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.FileMetadata;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ParseStatus;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.Version;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.FileMetadataRepository;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.repository.VersionRepository;
+import pl.edu.pw.ee.pyskp.documentworkflow.dtos.version.DiffHunkDTO;
+import pl.edu.pw.ee.pyskp.documentworkflow.dtos.version.DiffHunksDTO;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.*;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.DiffCache;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.diff.DiffResult;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.upload.UploadPipeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class VersionServiceImplTest {
+    private static final int LINE_COUNT = 100;
+    private static final long BASE_SAVE_DATE = 1000;
+    private static final long SAVE_DATE = 2000;
+
+    private final VersionRepository versionRepository = mock(VersionRepository.class);
+    private final ParsedContentService parsedContentService = mock(ParsedContentService.class);
+    private final DifferenceService differenceService = mock(DifferenceService.class);
+    private final DiffConfig diffConfig = new DiffConfig();
+    private final ObjectId fileId = new ObjectId();
+    private final List<String> baseLines = lines("base");
+    private final List<String> lines = lines("line");
+    private FileMetadata file;
+    private Version version;
+    private VersionServiceImpl versionService;
+
+    @Before
+    public void setUp() {
+        versionService = new VersionServiceImpl(mock(UserService.class), versionRepository,
+                mock(FileMetadataRepository.class), mock(ApplicationEventPublisher.class),
+                mock(ContentStorageService.class), mock(UploadPipeline.class), parsedContentService,
+                mock(VersionParsingService.class), mock(MongoOperations.class), differenceService,
+                new DiffCache(diffConfig, new SimpleMeterRegistry()), diffConfig);
+
+        file = new FileMetadata();
+        file.setId(fileId);
+        Version base = version(file, BASE_SAVE_DATE, new ArrayList<>());
+        version = version(file, SAVE_DATE, IntStream.range(0, 5)
+                .mapToObj(i -> modification(i * 20))
+                .collect(Collectors.toList()));
+        when(versionRepository.findOneByFile_IdAndSaveDate(fileId, new Date(SAVE_DATE)))
+                .thenReturn(Optional.of(version));
+        when(versionRepository.findTopByFile_IdAndSaveDateLessThanOrderBySaveDateDesc(fileId, new Date(SAVE_DATE)))
+                .thenReturn(Optional.of(base));
+        when(parsedContentService.getParsedFileContentLines(eq(base), anyInt(), anyInt()))
+                .thenAnswer(invocation -> range(baseLines, invocation.getArgument(1), invocation.getArgument(2)));
+        when(parsedContentService.getParsedFileContentLines(eq(version), anyInt(), anyInt()))
+                .thenAnswer(invocation -> range(lines, invocation.getArgument(1), invocation.getArgument(2)));
+    }
+
+    @Test
+    public void hunksArePagedWithCursor() throws Exception {
+        DiffHunksDTO firstPage = versionService.getDiffHunks(fileId, SAVE_DATE, null, 3, 0, 2);
+        DiffHunksDTO secondPage = versionService.getDiffHunks(fileId, SAVE_DATE, null, 3, firstPage.getNextCursor(),
+                2);
+        DiffHunksDTO lastPage = versionService.getDiffHunks(fileId, SAVE_DATE, null, 3, secondPage.getNextCursor(),
+                2);
+
+        assertThat(firstPage.getHunks()).extracting(DiffHunkDTO::getNewStart).containsExactly(0, 17);
+        assertThat(firstPage.getNextCursor()).isEqualTo(2);
+        assertThat(secondPage.getHunks()).extracting(DiffHunkDTO::getNewStart).containsExactly(37, 57);
+        assertThat(secondPage.getNextCursor()).isEqualTo(4);
+        assertThat(lastPage.getHunks()).extracting(DiffHunkDTO::getNewStart).containsExactly(77);
+        assertThat(lastPage.getNextCursor()).isNull();
+        assertThat(firstPage.getOldLineCount()).isEqualTo(LINE_COUNT);
+        assertThat(firstPage.getNewLineCount()).isEqualTo(LINE_COUNT);
+    }
+
+    @Test
+    public void hunkContainsLinesOfBothVersionsWithContext() throws Exception {
+        DiffHunkDTO hunk = versionService.getDiffHunks(fileId, SAVE_DATE, null, 3, 1, 1).getHunks().get(0);
+
+        assertThat(hunk.getOldStart()).isEqualTo(17);
+        assertThat(hunk.getOldLines()).isEqualTo(baseLines.subList(17, 24));
+        assertThat(hunk.getNewLines()).isEqualTo(lines.subList(17, 24));
+        assertThat(hunk.getDifferences()).hasSize(1);
+    }
+
+    @Test
+    public void cursorPastLastHunkGivesEmptyLastPage() throws Exception {
+        DiffHunksDTO page = versionService.getDiffHunks(fileId, SAVE_DATE, null, 3, 10, 2);
+
+        assertThat(page.getHunks()).isEmpty();
+        assertThat(page.getNextCursor()).isNull();
+        assertThat(page.getParseStatus()).isEqualTo(ParseStatus.READY);
+    }
+
+    @Test
+    public void pageSizeAndContextAreLimitedByConfiguration() throws Exception {
+        diffConfig.getHunks().setMaxPageSize(3);
+        diffConfig.getHunks().setMaxContext(1);
+
+        DiffHunksDTO page = versionService.getDiffHunks(fileId, SAVE_DATE, null, 50, 0, 100);
+
+        assertThat(page.getHunks()).extracting(DiffHunkDTO::getNewStart).containsExactly(0, 19, 39);
+        assertThat(page.getNextCursor()).isEqualTo(3);
+    }
+
+    @Test
+    public void differencesFromPreviousVersionKeepTheirApproximation() throws Exception {
+        version.setApproximateDifferences(true);
+
+        DiffHunksDTO page = versionService.getDiffHunks(fileId, SAVE_DATE, null, 3, 0, 2);
+
+        assertThat(page.isApproximateDifferences()).isTrue();
+        verifyZeroInteractions(differenceService);
+    }
+
+    @Test
+    public void differencesFromOlderVersionAreComputedWithinBudget() throws Exception {
+        Version olderVersion = version(file, BASE_SAVE_DATE / 2, new ArrayList<>());
+        when(versionRepository.findOneByFile_IdAndSaveDate(fileId, new Date(BASE_SAVE_DATE / 2)))
+                .thenReturn(Optional.of(olderVersion));
+        when(parsedContentService.getParsedFileContent(olderVersion)).thenReturn(baseLines);
+        when(parsedContentService.getParsedFileContent(version)).thenReturn(lines);
+        when(parsedContentService.getParsedFileContentLines(eq(olderVersion), anyInt(), anyInt()))
+                .thenAnswer(invocation -> range(baseLines, invocation.getArgument(1), invocation.getArgument(2)));
+        when(differenceService.getDifferencesWithinBudget(baseLines, lines))
+                .thenReturn(new DiffResult(Collections.singletonList(modification(40)), true));
+
+        DiffHunksDTO page = versionService.getDiffHunks(fileId, SAVE_DATE, BASE_SAVE_DATE / 2, 3, 0, 2);
+        versionService.getDiffHunks(fileId, SAVE_DATE, BASE_SAVE_DATE / 2, 3, 0, 2);
+
+        assertThat(page.getHunks()).extracting(DiffHunkDTO::getNewStart).containsExactly(37);
+        assertThat(page.isApproximateDifferences()).isTrue();
+        verify(differenceService).getDifferencesWithinBudget(baseLines, lines);
+        verifyNoMoreInteractions(differenceService);
+    }
+
+    private static Version version(FileMetadata file, long saveDate, List<Difference> differences) {
+        Version version = new Version();
+        version.setId(new ObjectId());
+        version.setFile(file);
+        version.setSaveDate(new Date(saveDate));
+        version.setLineCount(LINE_COUNT);
+        version.setParseStatus(ParseStatus.READY);
+        version.setDifferences(differences);
+        return version;
+    }
+
+    private static Difference modification(int start) {
+        Difference difference = new Difference();
+        difference.setPreviousSectionStart(start);
+        difference.setPreviousSectionSize(1);
+        difference.setNewSectionStart(start);
+        difference.setNewSectionSize(1);
+        difference.setDifferenceType(DifferenceType.MODIFICATION);
+        return difference;
+    }
+
+    private static List<String> lines(String prefix) {
+        return IntStream.range(0, LINE_COUNT).mapToObj(i -> prefix + i).collect(Collectors.toList());
+    }
+
+    private static List<String> range(List<String> lines, int from, int to) {
+        return lines.subList(Math.min(from, lines.size()), Math.min(to, lines.size()));
+    }
+}
@@ -0,0 +1,152 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.upload;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.mock.web.MockMultipartFile;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.UploadConfig;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ContentType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+import static org.springframework.util.unit.DataSize.ofBytes;
+
+public class ArchiveImporterTest {
+    private static final int MAX_ENTRY_SIZE = 1000;
+    private static final String CHECK_SUM = "check-sum";
+
+    private final UploadConfig uploadConfig = new UploadConfig();
+    private final UploadPipeline uploadPipeline = mock(UploadPipeline.class);
+    private final ArchiveImporter archiveImporter = new ArchiveImporter(uploadConfig, uploadPipeline);
+
+    @Before
+    public void setUp() throws IOException {
+        uploadConfig.getArchive().setMaxEntries(2);
+        uploadConfig.getArchive().setMaxEntrySize(ofBytes(MAX_ENTRY_SIZE));
+        when(uploadPipeline.sniffContentTypes(any()))
+                .thenReturn(Collections.singleton(ContentType.WORD_2003_DOCUMENT));
+        processAs(ContentType.WORD_2003_DOCUMENT.getName());
+        archiveImporter.startExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        archiveImporter.stopExecutor();
+    }
+
+    @Test
+    public void entriesAboveLimitAreRejectedInOrderOfArchive() throws IOException {
+        byte[] archive = zip(new ZipEntry("directory/"), new ZipEntry("directory/first.doc"),
+                new ZipEntry("second.doc"), new ZipEntry("third.doc"));
+
+        List<ImportedEntry> importedEntries = importEntries(archive);
+
+        assertThat(importedEntries)
+                .extracting(ImportedEntry::getName, ImportedEntry::getContentType, ImportedEntry::getError)
+                .containsExactly(
+                        tuple("directory/first.doc", ContentType.WORD_2003_DOCUMENT, null),
+                        tuple("second.doc", ContentType.WORD_2003_DOCUMENT, null),
+                        tuple("third.doc", null, "TooManyEntries"));
+        verify(uploadPipeline, times(2)).process(any(), isNull(), eq(ContentType.WORD_2003_DOCUMENT));
+    }
+
+    @Test
+    public void entryDeclaredLargerThanLimitIsNotRead() throws IOException {
+        byte[] archive = zip(MAX_ENTRY_SIZE + 1, new ZipEntry("large.doc"));
+
+        assertThat(importEntries(archive))
+                .extracting(ImportedEntry::getName, ImportedEntry::getError)
+                .containsExactly(tuple("large.doc", "TooLarge"));
+        verifyZeroInteractions(uploadPipeline);
+    }
+
+    @Test
+    public void entryInflatedOverLimitIsRejected() throws IOException {
+        byte[] archive = zip(100 * MAX_ENTRY_SIZE, new ZipEntry("bomb.doc"));
+        declareSizes(archive, 10);
+
+        assertThat(importEntries(archive))
+                .extracting(ImportedEntry::getName, ImportedEntry::getError)
+                .containsExactly(tuple("bomb.doc", "TooLarge"));
+    }
+
+    @Test
+    public void entryWhichCannotBeOfSupportedTypeIsNotStored() throws IOException {
+        when(uploadPipeline.sniffContentTypes(any())).thenReturn(Collections.emptySet());
+
+        assertThat(importEntries(zip(new ZipEntry("notes.txt"))))
+                .extracting(ImportedEntry::getName, ImportedEntry::getError)
+                .containsExactly(tuple("notes.txt", "UnknownContentType"));
+        verify(uploadPipeline, never()).process(any(), any(), any());
+    }
+
+    @Test
+    public void entryDetectedAsUnsupportedTypeIsDiscarded() throws IOException {
+        processAs("application/x-tika-msoffice");
+
+        assertThat(importEntries(zip(new ZipEntry("encrypted.doc"))))
+                .extracting(ImportedEntry::getName, ImportedEntry::getError)
+                .containsExactly(tuple("encrypted.doc", "UnknownContentType"));
+        verify(uploadPipeline).discard(new UploadedContent(CHECK_SUM, "application/x-tika-msoffice"));
+    }
+
+    private List<ImportedEntry> importEntries(byte[] archive) throws IOException {
+        return archiveImporter.importEntries(new MockMultipartFile("file", "archive.zip", "application/zip", archive));
+    }
+
+    /**
+     * Makes pipeline read whole content of entry and detect it as given type.
+     */
+    private void processAs(String mediaType) throws IOException {
+        doAnswer(invocation -> {
+            try (InputStream content = invocation.<InputStreamSource>getArgument(0).getInputStream()) {
+                content.readAllBytes();
+            }
+            return new UploadedContent(CHECK_SUM, mediaType);
+        }).when(uploadPipeline).process(any(), any(), any());
+    }
+
+    private static byte[] zip(ZipEntry... entries) throws IOException {
+        return zip(100, entries);
+    }
+
+    private static byte[] zip(int entrySize, ZipEntry... entries) throws IOException {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOutput = new ZipOutputStream(archive)) {
+            for (ZipEntry entry : entries) {
+                zipOutput.putNextEntry(entry);
+                if (!entry.isDirectory()) {
+                    zipOutput.write(new byte[entrySize]);
+                }
+                zipOutput.closeEntry();
+            }
+        }
+        return archive.toByteArray();
+    }
+
+    /**
+     * Overwrites uncompressed sizes declared by central directory of archive, like archives crafted to look small.
+     */
+    private static void declareSizes(byte[] archive, int size) {
+        for (int i = 0; i + 28 <= archive.length; i++) {
+            if (archive[i] == 'P' && archive[i + 1] == 'K' && archive[i + 2] == 1 && archive[i + 3] == 2) {
+                for (int k = 0; k < 4; k++) {
+                    archive[i + 24 + k] = (byte) (size >>> (8 * k));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.upload;
+
+import org.junit.Test;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ContentType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LeadingBytesSnifferTest {
+    private static final byte[] OLE2_HEADER = {
+            (byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1, 0, 0, 0, 0
+    };
+
+    @Test
+    public void ole2FileMayBeOffice2003Document() {
+        assertThat(sniff(OLE2_HEADER))
+                .containsExactlyInAnyOrder(ContentType.WORD_2003_DOCUMENT, ContentType.EXCEL_2003_SPREADSHEET);
+    }
+
+    @Test
+    public void zipWithWordPartIsWordDocument() throws IOException {
+        byte[] zip = zip(false, Map.entry("[Content_Types].xml", "<Types/>"), Map.entry("word/document.xml", "<w/>"));
+
+        assertThat(sniff(zip)).containsExactly(ContentType.WORD_2007_DOCUMENT);
+    }
+
+    @Test
+    public void zipWithExcelPartIsExcelSpreadsheet() throws IOException {
+        byte[] zip = zip(false, Map.entry("[Content_Types].xml", "<Types/>"), Map.entry("xl/workbook.xml", "<x/>"));
+
+        assertThat(sniff(zip)).containsExactly(ContentType.EXCEL_2007_SPREADSHEET);
+    }
+
+    @Test
+    public void zipWithOdfMimeTypeEntryIsOfThatType() throws IOException {
+        byte[] text = zip(false, Map.entry("mimetype", ContentType.OPEN_DOCUMENT_TEXT.getName()),
+                Map.entry("content.xml", "<office/>"));
+        byte[] spreadsheet = zip(false, Map.entry("mimetype", ContentType.OPEN_DOCUMENT_SPREADSHEET.getName()),
+                Map.entry("content.xml", "<office/>"));
+
+        assertThat(sniff(text)).containsExactly(ContentType.OPEN_DOCUMENT_TEXT);
+        assertThat(sniff(spreadsheet)).containsExactly(ContentType.OPEN_DOCUMENT_SPREADSHEET);
+    }
+
+    @Test
+    public void zipWithUnsupportedOdfMimeTypeIsRejected() throws IOException {
+        byte[] zip = zip(false, Map.entry("mimetype", "application/vnd.oasis.opendocument.presentation"));
+
+        assertThat(sniff(zip)).isEmpty();
+    }
+
+    @Test
+    public void zipWithDataDescriptorIsRecognizedByItsFirstEntry() throws IOException {
+        byte[] zip = zip(true, Map.entry("word/document.xml", "<w/>"), Map.entry("[Content_Types].xml", "<Types/>"));
+
+        assertThat(sniff(zip)).containsExactly(ContentType.WORD_2007_DOCUMENT);
+    }
+
+    @Test
+    public void zipWithDataDescriptorIsNotReadPastItsFirstEntry() throws IOException {
+        byte[] zip = zip(true, Map.entry("[Content_Types].xml", "<Types/>"), Map.entry("xl/workbook.xml", "<x/>"));
+
+        assertThat(sniff(zip)).containsExactlyInAnyOrder(ContentType.WORD_2007_DOCUMENT,
+                ContentType.EXCEL_2007_SPREADSHEET, ContentType.OPEN_DOCUMENT_TEXT,
+                ContentType.OPEN_DOCUMENT_SPREADSHEET);
+    }
+
+    @Test
+    public void zipWithoutRecognizedEntriesMayBeAnyZipBasedType() throws IOException {
+        byte[] zip = zip(false, Map.entry("[Content_Types].xml", "<Types/>"), Map.entry("docProps/app.xml", "<p/>"));
+
+        assertThat(sniff(zip)).containsExactlyInAnyOrder(ContentType.WORD_2007_DOCUMENT,
+                ContentType.EXCEL_2007_SPREADSHEET, ContentType.OPEN_DOCUMENT_TEXT,
+                ContentType.OPEN_DOCUMENT_SPREADSHEET);
+    }
+
+    @Test
+    public void otherContentIsRejected() {
+        assertThat(sniff("plain text".getBytes(StandardCharsets.US_ASCII))).isEmpty();
+        assertThat(sniff(Arrays.copyOf(OLE2_HEADER, 4))).isEmpty();
+        assertThat(sniff(new byte[0])).isEmpty();
+    }
+
+    private static Set<ContentType> sniff(byte[] content) {
+        byte[] prefix = Arrays.copyOf(content, LeadingBytesSniffer.PREFIX_SIZE);
+        return LeadingBytesSniffer.getPossibleContentTypes(prefix,
+                Math.min(content.length, LeadingBytesSniffer.PREFIX_SIZE));
+    }
+
+    /**
+     * @param dataDescriptors whether entries are deflated with sizes written after their data, otherwise they are
+     *                        stored with sizes in their headers
+     */
+    @SafeVarargs
+    private static byte[] zip(boolean dataDescriptors, Map.Entry<String, String>... entries) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(output)) {
+            for (Map.Entry<String, String> nameAndContent : entries) {
+                byte[] content = nameAndContent.getValue().getBytes(StandardCharsets.UTF_8);
+                ZipEntry entry = new ZipEntry(nameAndContent.getKey());
+                if (dataDescriptors) {
+                    entry.setMethod(ZipEntry.DEFLATED);
+                } else {
+                    CRC32 crc = new CRC32();
+                    crc.update(content);
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(content.length);
+                    entry.setCrc(crc.getValue());
+                }
+                zip.putNextEntry(entry);
+                zip.write(content);
+                zip.closeEntry();
+            }
+        }
+        return output.toByteArray();
+    }
+}
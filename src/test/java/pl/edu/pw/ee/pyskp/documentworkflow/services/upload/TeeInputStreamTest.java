@@ -0,0 +1,115 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.upload;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TeeInputStreamTest {
+    private static final byte[] CONTENT = createContent(20_000);
+
+    @Test
+    public void bytesReadOneByOneAreCopiedToBranch() throws IOException {
+        ClosingOutputStream branch = new ClosingOutputStream();
+        TeeInputStream tee = new TeeInputStream(new ByteArrayInputStream(CONTENT), branch);
+
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        int b;
+        while ((b = tee.read()) != -1) {
+            read.write(b);
+        }
+
+        assertThat(read.toByteArray()).isEqualTo(CONTENT);
+        assertThat(branch.toByteArray()).isEqualTo(CONTENT);
+        assertThat(branch.closed).isTrue();
+    }
+
+    @Test
+    public void bytesReadInBlocksAndSkippedAreCopiedToBranch() throws IOException {
+        ClosingOutputStream branch = new ClosingOutputStream();
+        TeeInputStream tee = new TeeInputStream(new ByteArrayInputStream(CONTENT), branch);
+
+        byte[] head = tee.readNBytes(1000);
+        assertThat(tee.skip(10_000)).isEqualTo(10_000);
+        byte[] tail = tee.readAllBytes();
+
+        assertThat(head.length + 10_000 + tail.length).isEqualTo(CONTENT.length);
+        assertThat(branch.toByteArray()).isEqualTo(CONTENT);
+        assertThat(branch.closed).isTrue();
+    }
+
+    @Test
+    public void failingBranchIsDetachedWithoutInterruptingReading() throws IOException {
+        FailingOutputStream branch = new FailingOutputStream(5000);
+        TeeInputStream tee = new TeeInputStream(new ByteArrayInputStream(CONTENT), branch);
+
+        assertThat(tee.readAllBytes()).isEqualTo(CONTENT);
+        assertThat(branch.closed).isTrue();
+    }
+
+    @Test
+    public void branchIsClosedWithStream() throws IOException {
+        ClosingOutputStream branch = new ClosingOutputStream();
+        TeeInputStream tee = new TeeInputStream(new ByteArrayInputStream(CONTENT), branch);
+
+        tee.readNBytes(100);
+        tee.close();
+
+        assertThat(branch.toByteArray()).hasSize(100);
+        assertThat(branch.closed).isTrue();
+    }
+
+    private static byte[] createContent(int length) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        return content;
+    }
+
+    private static class ClosingOutputStream extends ByteArrayOutputStream {
+        private boolean closed;
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    /**
+     * Output stream, which fails after given number of bytes has been written to it.
+     */
+    private static class FailingOutputStream extends OutputStream {
+        private int remaining;
+        private boolean closed;
+
+        FailingOutputStream(int capacity) {
+            remaining = capacity;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (remaining-- <= 0) {
+                throw new IOException("Branch is full");
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            assertThat(closed).isFalse();
+            if (len > remaining) {
+                throw new IOException("Branch is full");
+            }
+            remaining -= len;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
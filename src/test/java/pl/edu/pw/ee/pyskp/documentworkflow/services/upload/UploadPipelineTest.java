@@ -0,0 +1,107 @@
+package pl.edu.pw.ee.pyskp.documentworkflow.services.upload;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ByteArrayResource;
+import pl.edu.pw.ee.pyskp.documentworkflow.config.UploadConfig;
+import pl.edu.pw.ee.pyskp.documentworkflow.data.domain.ContentType;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.ContentStorageService;
+import pl.edu.pw.ee.pyskp.documentworkflow.services.TikaService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class UploadPipelineTest {
+    private static final String CHECK_SUM = "check-sum";
+    private static final String BASE_CHECK_SUM = "base-check-sum";
+    private static final String MEDIA_TYPE = "application/msword";
+
+    /**
+     * Content bigger than pipe to detector, so storing and detection have to run concurrently.
+     */
+    private static final byte[] CONTENT = createContent(300_000);
+
+    private final ContentStorageService contentStorageService = mock(ContentStorageService.class);
+    private final TikaService tikaService = mock(TikaService.class);
+    private final AtomicReference<byte[]> storedContent = new AtomicReference<>();
+    private UploadPipeline uploadPipeline;
+
+    @Before
+    public void setUp() throws IOException {
+        when(contentStorageService.store(any(), any(), any())).thenAnswer(invocation -> {
+            storedContent.set(invocation.<InputStream>getArgument(0).readAllBytes());
+            return CHECK_SUM;
+        });
+        uploadPipeline = new UploadPipeline(contentStorageService, tikaService, new UploadConfig());
+        uploadPipeline.startDetectorExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        uploadPipeline.stopDetectorExecutor();
+    }
+
+    @Test
+    public void contentIsStoredAndDetectedFromSameBytes() throws IOException {
+        AtomicReference<byte[]> detectedContent = new AtomicReference<>();
+        when(tikaService.detectMediaType(any(InputStream.class))).thenAnswer(invocation -> {
+            detectedContent.set(invocation.<InputStream>getArgument(0).readAllBytes());
+            return MEDIA_TYPE;
+        });
+
+        UploadedContent uploadedContent = uploadPipeline.process(
+                new ByteArrayResource(CONTENT), BASE_CHECK_SUM, ContentType.WORD_2003_DOCUMENT);
+
+        assertThat(uploadedContent).isEqualTo(new UploadedContent(CHECK_SUM, MEDIA_TYPE));
+        assertThat(storedContent.get()).isEqualTo(CONTENT);
+        assertThat(detectedContent.get()).isEqualTo(CONTENT);
+        verify(contentStorageService).store(any(), eq(BASE_CHECK_SUM), eq(ContentType.WORD_2003_DOCUMENT));
+    }
+
+    @Test
+    public void detectorReadingOnlyLeadingBytesDoesNotBlockStoring() throws IOException {
+        when(tikaService.detectMediaType(any(InputStream.class))).thenAnswer(invocation -> {
+            invocation.<InputStream>getArgument(0).readNBytes(1024);
+            return MEDIA_TYPE;
+        });
+
+        UploadedContent uploadedContent = uploadPipeline.process(new ByteArrayResource(CONTENT), null, null);
+
+        assertThat(uploadedContent.getMediaType()).isEqualTo(MEDIA_TYPE);
+        assertThat(storedContent.get()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    public void storedContentIsReleasedWhenDetectionFails() throws IOException {
+        when(tikaService.detectMediaType(any(InputStream.class))).thenThrow(new IOException("Detection failed"));
+
+        assertThatThrownBy(() -> uploadPipeline.process(new ByteArrayResource(CONTENT), null, null))
+                .isInstanceOf(IOException.class)
+                .hasCauseInstanceOf(IOException.class);
+        assertThat(storedContent.get()).isEqualTo(CONTENT);
+        verify(contentStorageService).release(CHECK_SUM);
+    }
+
+    @Test
+    public void discardReleasesStoredContent() {
+        uploadPipeline.discard(new UploadedContent(CHECK_SUM, MEDIA_TYPE));
+
+        verify(contentStorageService).release(CHECK_SUM);
+    }
+
+    private static byte[] createContent(int length) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        return content;
+    }
+}